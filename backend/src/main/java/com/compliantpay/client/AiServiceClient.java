@@ -0,0 +1,161 @@
+package com.compliantpay.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.exception.AiServiceException;
+import com.compliantpay.model.WorkforceSnapshot;
+import com.compliantpay.service.JurisdictionRegistry;
+import com.compliantpay.util.HashUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Client for the ai-service legislation analysis API ({@code POST /analyze/legislation}).
+ *
+ * Results are cached by legislation text hash and workforce snapshot version, so an analysis is
+ * only repeated once the text or the workforce changes. Identical requests arriving while a call
+ * is in flight share that call instead of starting their own; failed calls are not cached. The
+ * workforce is streamed into the request body as it is sent.
+ */
+@Component
+public class AiServiceClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiServiceClient.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JurisdictionRegistry jurisdictionRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ai-service.url:http://localhost:8000}")
+    private String serviceUrl;
+
+    @Value("${app.ai-service.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.ai-service.timeout:30000}")
+    private long timeoutMs;
+
+    @Value("${app.ai-service.cache.max-entries:256}")
+    private long cacheMaxEntries;
+
+    @Value("${app.ai-service.cache.ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    private HttpClient httpClient;
+    private AsyncCache<String, JsonNode> analyses;
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        analyses = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Analyzes the cost impact of the legislation on the given workforce.
+     *
+     * @return the ai-service response as returned, with snake_case field names
+     * @throws AiServiceException when the service cannot be reached, times out or answers with an error
+     */
+    public JsonNode analyzeLegislation(String legislationText, WorkforceSnapshot snapshot) {
+        String key = HashUtil.generateSHA256Hash(legislationText) + ":" + snapshot.getVersion();
+        CompletableFuture<JsonNode> result = analyses.get(key, (k, executor) -> {
+            logger.debug("Requesting legislation analysis {} for {} employees", k, snapshot.size());
+            return post(legislationText, snapshot);
+        });
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("interrupted while waiting for the analysis", e);
+        } catch (TimeoutException e) {
+            throw new AiServiceException("no analysis within " + timeoutMs + " ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AiServiceException) {
+                throw (AiServiceException) cause;
+            }
+            throw new AiServiceException(String.valueOf(cause.getMessage()), cause);
+        }
+    }
+
+    private CompletableFuture<JsonNode> post(String legislationText, WorkforceSnapshot snapshot) {
+        long startNanos = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(serviceUrl + "/analyze/legislation"))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> openPayload(legislationText, snapshot)))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() >= 400) {
+                            throw new AiServiceException("ai-service returned " + response.statusCode());
+                        }
+                        return objectMapper.readTree(body);
+                    } catch (IOException e) {
+                        throw new AiServiceException("error reading analysis response", e);
+                    }
+                })
+                .whenComplete((analysis, error) -> record(error == null ? "success" : "failure", startNanos))
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    logger.warn("Legislation analysis failed: {}", cause.getMessage());
+                    throw cause instanceof AiServiceException
+                            ? (AiServiceException) cause
+                            : new AiServiceException(String.valueOf(cause.getMessage()), cause);
+                });
+    }
+
+    private InputStream openPayload(String legislationText, WorkforceSnapshot snapshot) {
+        try {
+            return new WorkforcePayloadStream(objectMapper.getFactory(), legislationText, snapshot, jurisdictionRegistry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void record(String outcome, long startNanos) {
+        Timer.builder("ai.legislation.analysis")
+                .description("Time for the ai-service to analyze legislation impact")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,464 @@
+package com.compliantpay.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Asynchronous client for the blockchain-service anchoring API.
+ *
+ * Anchor requests arriving within a short window are coalesced into one {@code POST /anchor/batch}
+ * call (falling back to one {@code POST /anchor/proof} per digest against services without the
+ * batch endpoint). Calls time out, are retried with full-jitter exponential backoff, and are
+ * short-circuited while the service keeps failing. Only digests that are not anchored yet are
+ * retried; each carries the caller's idempotency id, so a digest the service took before a
+ * timeout is not anchored a second time.
+ *
+ * A digest still queued when the submit wait runs out resolves with its receipt id only; callers
+ * look the receipt up later with {@link #receipt} to learn the transaction hash and Merkle proof.
+ */
+@Component
+public class BlockchainAnchorClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockchainAnchorClient.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.blockchain.anchor.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.blockchain.anchor.service-url:http://localhost:8081}")
+    private String serviceUrl;
+
+    @Value("${app.blockchain.anchor.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.blockchain.anchor.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    // How long blockchain-service may hold a batch call until its transactions are sent
+    @Value("${app.blockchain.anchor.submit-wait-ms:3000}")
+    private long submitWaitMs;
+
+    @Value("${app.blockchain.anchor.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.blockchain.anchor.backoff-base-ms:100}")
+    private long backoffBaseMs;
+
+    @Value("${app.blockchain.anchor.backoff-max-ms:2000}")
+    private long backoffMaxMs;
+
+    @Value("${app.blockchain.anchor.batch-window-ms:10}")
+    private long batchWindowMs;
+
+    @Value("${app.blockchain.anchor.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${app.blockchain.anchor.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.blockchain.anchor.circuit-breaker.open-seconds:30}")
+    private long openSeconds;
+
+    private HttpClient httpClient;
+    private CircuitBreaker circuitBreaker;
+
+    private final ConcurrentLinkedQueue<PendingAnchor> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    // Cleared once the service answers 404 on the batch endpoint
+    private volatile boolean batchSupported = true;
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Queues a digest for anchoring. Anchoring again under the same idempotency id returns the
+     * existing receipt unless that one failed.
+     *
+     * @return the anchor receipt, or an {@link AnchorException} once retries are exhausted
+     */
+    public CompletableFuture<AnchorReceipt> anchor(String digest, String source, String idempotencyId) {
+        PendingAnchor anchor = new PendingAnchor(digest, source, idempotencyId);
+        pending.add(anchor);
+        if (pendingCount.incrementAndGet() >= maxBatchSize) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(batchWindowMs, TimeUnit.MILLISECONDS).execute(this::flush);
+        }
+        return anchor.result;
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<PendingAnchor> batch;
+        while (!(batch = drain()).isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<PendingAnchor> drain() {
+        List<PendingAnchor> batch = new ArrayList<>();
+        PendingAnchor anchor;
+        while (batch.size() < maxBatchSize && (anchor = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(anchor);
+        }
+        return batch;
+    }
+
+    private void send(List<PendingAnchor> batch) {
+        if (!circuitBreaker.tryAcquire()) {
+            failAll(batch, new AnchorException("Blockchain service circuit is open", false));
+            return;
+        }
+        attempt(batch, 1, System.nanoTime());
+    }
+
+    private void attempt(List<PendingAnchor> batch, int attempt, long startNanos) {
+        boolean useBatch = batchSupported;
+        CompletableFuture<List<ItemResult>> call = useBatch ? postBatch(batch) : postEach(batch);
+        call.whenComplete((results, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof BatchUnsupportedException) {
+                    logger.info("Blockchain service has no batch endpoint; anchoring digests one by one");
+                    batchSupported = false;
+                    attempt(batch, attempt, startNanos);
+                    return;
+                }
+                // No answer: any digest may or may not have been taken, so all of them go again
+                retryOrFail(batch, cause, true, useBatch, attempt, startNanos);
+                return;
+            }
+            circuitBreaker.onSuccess();
+            List<PendingAnchor> failed = new ArrayList<>();
+            Throwable failure = null;
+            for (int i = 0; i < batch.size(); i++) {
+                ItemResult result = results.get(i);
+                if (result.error == null) {
+                    batch.get(i).result.complete(result.receipt);
+                } else if (isRetryable(result.error)) {
+                    failed.add(batch.get(i));
+                    failure = result.error;
+                } else {
+                    batch.get(i).result.completeExceptionally(toAnchorException(result.error));
+                }
+            }
+            if (failed.isEmpty()) {
+                record(useBatch ? "batch" : "single", "success", startNanos);
+                return;
+            }
+            retryOrFail(failed, failure, false, useBatch, attempt, startNanos);
+        });
+    }
+
+    /**
+     * Retries the digests that are not anchored yet, or fails them once attempts are exhausted.
+     * Only calls that got no answer count against the circuit breaker.
+     */
+    private void retryOrFail(List<PendingAnchor> anchors, Throwable cause, boolean unanswered, boolean useBatch,
+                             int attempt, long startNanos) {
+        if (isRetryable(cause) && attempt < maxAttempts) {
+            long delay = backoffMillis(attempt);
+            logger.debug("Anchor attempt {} for {} digests failed, retrying in {} ms: {}",
+                    attempt, anchors.size(), delay, cause.getMessage());
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(anchors, attempt + 1, startNanos));
+            return;
+        }
+        if (unanswered) {
+            circuitBreaker.onFailure();
+        }
+        record(useBatch ? "batch" : "single", "failure", startNanos);
+        logger.warn("Anchoring {} digests failed after {} attempts: {}", anchors.size(), attempt, cause.getMessage());
+        failAll(anchors, toAnchorException(cause));
+    }
+
+    private static AnchorException toAnchorException(Throwable cause) {
+        return cause instanceof AnchorException
+                ? (AnchorException) cause
+                : new AnchorException("Anchoring failed: " + cause.getMessage(), cause);
+    }
+
+    private CompletableFuture<List<ItemResult>> postBatch(List<PendingAnchor> batch) {
+        List<Map<String, String>> items = new ArrayList<>(batch.size());
+        for (PendingAnchor anchor : batch) {
+            items.add(anchor.toRequest());
+        }
+        return post("/anchor/batch?waitMs=" + submitWaitMs, Map.of("items", items)).thenApply(response -> {
+            JsonNode results = response.path("results");
+            if (!results.isArray() || results.size() != batch.size()) {
+                throw new AnchorException("Malformed batch anchor response", false);
+            }
+            List<ItemResult> itemResults = new ArrayList<>(batch.size());
+            for (JsonNode result : results) {
+                itemResults.add(ItemResult.of(result));
+            }
+            return itemResults;
+        });
+    }
+
+    private CompletableFuture<List<ItemResult>> postEach(List<PendingAnchor> batch) {
+        List<CompletableFuture<ItemResult>> calls = new ArrayList<>(batch.size());
+        for (PendingAnchor anchor : batch) {
+            calls.add(post("/anchor/proof", anchor.toRequest())
+                    .thenApply(ItemResult::of)
+                    .exceptionally(error -> new ItemResult(null,
+                            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error)));
+        }
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<ItemResult> results = calls.stream().map(CompletableFuture::join).toList();
+            // Nothing went through: treat it like a batch call that got no answer
+            if (results.stream().allMatch(result -> result.error != null)) {
+                Throwable error = results.get(0).error;
+                throw error instanceof RuntimeException ? (RuntimeException) error : new CompletionException(error);
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Looks a receipt up, holding the call up to {@code waitMs} until the receipt is confirmed or
+     * failed. Lookups bypass the circuit breaker and are not retried.
+     *
+     * @return the receipt, or null when blockchain-service no longer knows it
+     */
+    public CompletableFuture<AnchorReceipt> receipt(String receiptId, long waitMs) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(serviceUrl + "/anchor/receipts/" + receiptId + "?waitMs=" + waitMs))
+                .timeout(Duration.ofMillis(waitMs + requestTimeoutMs))
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response ->
+                response.statusCode() == 404 ? null : AnchorReceipt.of(parse(request, response)));
+    }
+
+    private CompletableFuture<JsonNode> post(String path, Object body) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(serviceUrl + path))
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new AnchorException("Error serializing anchor request", e));
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() == 404 && path.startsWith("/anchor/batch")) {
+                throw new BatchUnsupportedException();
+            }
+            return parse(request, response);
+        });
+    }
+
+    private JsonNode parse(HttpRequest request, HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status >= 500 || status == 429) {
+            throw new AnchorException("Blockchain service returned " + status, true);
+        }
+        if (status >= 400) {
+            throw new AnchorException("Blockchain service rejected " + request.method() + " " + request.uri().getPath()
+                    + " with " + status, false);
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new AnchorException("Error parsing anchor response", e);
+        }
+    }
+
+    private long backoffMillis(int attempt) {
+        // Full jitter: uniform in [0, min(max, base * 2^(attempt-1))]
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isRetryable(Throwable cause) {
+        if (cause instanceof AnchorException) {
+            return ((AnchorException) cause).isRetryable();
+        }
+        // Connect failures and HttpTimeoutException
+        return cause instanceof IOException;
+    }
+
+    private static void failAll(List<PendingAnchor> batch, RuntimeException cause) {
+        for (PendingAnchor anchor : batch) {
+            anchor.result.completeExceptionally(cause);
+        }
+    }
+
+    private void record(String mode, String outcome, long startNanos) {
+        Timer.builder("blockchain.anchor.request")
+                .description("Time to anchor a batch of digests, retries included")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static class PendingAnchor {
+        private final String digest;
+        private final String source;
+        // Sent with every attempt so blockchain-service anchors the digest once however often it is retried
+        private final String idempotencyId;
+        private final CompletableFuture<AnchorReceipt> result = new CompletableFuture<>();
+
+        PendingAnchor(String digest, String source, String idempotencyId) {
+            this.digest = digest;
+            this.source = source;
+            this.idempotencyId = idempotencyId;
+        }
+
+        Map<String, String> toRequest() {
+            return Map.of("digest", digest, "source", source, "idempotencyId", idempotencyId);
+        }
+    }
+
+    /**
+     * Outcome of one digest within a call that got an answer
+     */
+    private static class ItemResult {
+        private final AnchorReceipt receipt;
+        private final Throwable error;
+
+        ItemResult(AnchorReceipt receipt, Throwable error) {
+            this.receipt = receipt;
+            this.error = error;
+        }
+
+        static ItemResult of(JsonNode result) {
+            AnchorReceipt receipt = AnchorReceipt.of(result);
+            if (receipt.isFailed()) {
+                return new ItemResult(null, new AnchorException("Anchoring failed: " + receipt.getError(), true));
+            }
+            return new ItemResult(receipt, null);
+        }
+    }
+
+    /**
+     * Blockchain-service's receipt for one digest. The transaction hash and Merkle proof are only
+     * set once the digest has been sent; the block number once the transaction is confirmed.
+     */
+    public static class AnchorReceipt {
+        private final String receiptId;
+        private final String status;
+        private final String txHash;
+        private final String merkleRoot;
+        private final Integer leafIndex;
+        // JSON array of {hash, left} steps from the leaf up to the root
+        private final String merkleProof;
+        private final Long blockNumber;
+        private final String error;
+
+        private AnchorReceipt(JsonNode node) {
+            this.receiptId = text(node, "receiptId");
+            this.status = text(node, "status");
+            this.txHash = text(node, "txHash");
+            this.merkleRoot = text(node, "merkleRoot");
+            this.leafIndex = node.hasNonNull("leafIndex") ? node.get("leafIndex").asInt() : null;
+            this.merkleProof = node.path("merkleProof").isArray() ? node.get("merkleProof").toString() : null;
+            this.blockNumber = node.hasNonNull("blockNumber") ? node.get("blockNumber").asLong() : null;
+            this.error = text(node, "error");
+        }
+
+        static AnchorReceipt of(JsonNode node) {
+            AnchorReceipt receipt = new AnchorReceipt(node);
+            if (receipt.receiptId == null) {
+                throw new AnchorException("Anchor response carries no receipt id", false);
+            }
+            return receipt;
+        }
+
+        private static String text(JsonNode node, String field) {
+            return node.hasNonNull(field) ? node.get(field).asText() : null;
+        }
+
+        public boolean isConfirmed() {
+            return "CONFIRMED".equals(status);
+        }
+
+        public boolean isFailed() {
+            return "FAILED".equals(status);
+        }
+
+        public String getReceiptId() { return receiptId; }
+        public String getStatus() { return status; }
+        public String getTxHash() { return txHash; }
+        public String getMerkleRoot() { return merkleRoot; }
+        public Integer getLeafIndex() { return leafIndex; }
+        public String getMerkleProof() { return merkleProof; }
+        public Long getBlockNumber() { return blockNumber; }
+        public String getError() { return error; }
+    }
+
+    public static class AnchorException extends RuntimeException {
+        private final boolean retryable;
+
+        public AnchorException(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+
+        public AnchorException(String message, Throwable cause) {
+            super(message, cause);
+            this.retryable = false;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+    }
+
+    private static class BatchUnsupportedException extends RuntimeException {
+        BatchUnsupportedException() {
+            super("Batch anchoring not supported", null, false, false);
+        }
+    }
+}
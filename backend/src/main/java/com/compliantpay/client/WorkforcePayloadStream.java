@@ -0,0 +1,122 @@
+package com.compliantpay.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.compliantpay.model.WorkforceSnapshot;
+import com.compliantpay.service.JurisdictionRegistry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Renders a legislation analysis request as JSON on demand while it is read, a few hundred
+ * employees at a time, so the payload for a large workforce is never held in memory at once:
+ *
+ * <pre>
+ * {"legislation_text": "...", "current_employee_data": [{"employee_id": ..., "salary": ...}, ...]}
+ * </pre>
+ */
+class WorkforcePayloadStream extends InputStream {
+
+    private static final int ROWS_PER_CHUNK = 256;
+
+    private final String legislationText;
+    private final WorkforceSnapshot snapshot;
+    private final JurisdictionRegistry jurisdictions;
+    private final ChunkBuffer buffer = new ChunkBuffer();
+    private final JsonGenerator generator;
+
+    private int nextRow = -1;
+    private boolean finished;
+    private int position;
+
+    WorkforcePayloadStream(JsonFactory jsonFactory, String legislationText, WorkforceSnapshot snapshot,
+                           JurisdictionRegistry jurisdictions) throws IOException {
+        this.legislationText = legislationText;
+        this.snapshot = snapshot;
+        this.jurisdictions = jurisdictions;
+        this.generator = jsonFactory.createGenerator(buffer);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer.bytes()[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.size() - position);
+        System.arraycopy(buffer.bytes(), position, target, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * @return false once everything has been read
+     */
+    private boolean fill() throws IOException {
+        while (position >= buffer.size()) {
+            if (finished) {
+                return false;
+            }
+            buffer.reset();
+            position = 0;
+            writeChunk();
+            generator.flush();
+        }
+        return true;
+    }
+
+    private void writeChunk() throws IOException {
+        if (nextRow < 0) {
+            generator.writeStartObject();
+            generator.writeStringField("legislation_text", legislationText);
+            generator.writeArrayFieldStart("current_employee_data");
+            nextRow = 0;
+            return;
+        }
+        int end = Math.min(snapshot.size(), nextRow + ROWS_PER_CHUNK);
+        for (int row = nextRow; row < end; row++) {
+            String employeeId = snapshot.employeeId(row).toString();
+            generator.writeStartObject();
+            generator.writeStringField("employee_id", employeeId);
+            // Names are not part of the snapshot; the id identifies affected employees
+            generator.writeStringField("name", employeeId);
+            generator.writeNumberField("salary", snapshot.salaryCents(row) / 100.0);
+            generator.writeStringField("department", snapshot.department(snapshot.departmentCode(row)));
+            generator.writeStringField("location", jurisdictions.nameOf(snapshot.locationCode(row)));
+            generator.writeStringField("benefit_plan", snapshot.benefitPlan(snapshot.benefitPlanCode(row)));
+            generator.writeEndObject();
+        }
+        nextRow = end;
+        if (nextRow >= snapshot.size()) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.close();
+            finished = true;
+        }
+    }
+
+    /**
+     * Exposes the backing array so chunks can be read without copying them out first
+     */
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+        ChunkBuffer() {
+            super(32 * 1024);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.compliantpay.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.compliantpay.logging.MdcTaskDecorator;
+
+/**
+ * Thread pools for background payroll and ledger work
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs the stages of payroll pipelines. Every stage of a run blocks on its neighbours,
+     * so tasks are handed straight to a thread instead of waiting in a queue.
+     *
+     * With spring.threads.virtual.enabled on Java 21+, each stage gets its own virtual thread
+     * and the pool limit no longer applies; database access stays bounded by the Hikari pool.
+     * Stages inherit the MDC of the thread that started the run, so their logs carry its trace id.
+     */
+    @Bean(name = "payrollExecutor")
+    public AsyncTaskExecutor payrollExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("payroll-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(new MdcTaskDecorator());
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(64);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("payroll-");
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * CPU-bound ledger verification segments; one thread per core is enough
+     */
+    @Bean(name = "verificationExecutor")
+    public AsyncTaskExecutor verificationExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setThreadNamePrefix("ledger-verify-");
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        return executor;
+    }
+}
@@ -3,8 +3,10 @@ package com.compliantpay.config;
 import java.util.Arrays;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -23,6 +25,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.compliantpay.security.AuthEntryPointJwt;
 import com.compliantpay.security.AuthTokenFilter;
+import com.compliantpay.security.RateLimitFilter;
+import com.compliantpay.security.UsageMeteringFilter;
 import com.compliantpay.service.impl.UserDetailsServiceImpl;
 // ...existing code...
 
@@ -46,6 +50,34 @@ public class SecurityConfig {
         return new AuthTokenFilter();
     }
 
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter();
+    }
+
+    /**
+     * Keeps the rate limiter out of the servlet container's own chain; it must only run inside
+     * the security chain, after the caller has been authenticated
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public UsageMeteringFilter usageMeteringFilter() {
+        return new UsageMeteringFilter();
+    }
+
+    @Bean
+    public FilterRegistrationBean<UsageMeteringFilter> usageMeteringFilterRegistration(UsageMeteringFilter usageMeteringFilter) {
+        FilterRegistrationBean<UsageMeteringFilter> registration = new FilterRegistrationBean<>(usageMeteringFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
@@ -73,6 +105,8 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> 
                 auth.requestMatchers("/api/auth/**").permitAll()
                     .requestMatchers("/api/public/**").permitAll()
+                    // Instance-to-instance calls; checked against the internal token by the controller
+                    .requestMatchers("/api/internal/**").permitAll()
                     .requestMatchers("/actuator/health").permitAll()
                     .requestMatchers("/actuator/info").permitAll()
                     .requestMatchers("/swagger-ui/**").permitAll()
@@ -80,6 +114,8 @@ public class SecurityConfig {
                     .requestMatchers("/swagger-resources/**").permitAll()
                     .requestMatchers("/webjars/**").permitAll()
                     .requestMatchers("/api/employees/**").hasAnyRole("ADMIN", "HR", "MANAGER")
+                    // Auditors export payroll history alongside the ledger
+                    .requestMatchers(HttpMethod.GET, "/api/payroll/history/export").hasAnyRole("ADMIN", "PAYROLL", "AUDITOR")
                     .requestMatchers("/api/payroll/**").hasAnyRole("ADMIN", "PAYROLL")
                     .requestMatchers("/api/compliance/**").hasAnyRole("ADMIN", "COMPLIANCE")
                     .requestMatchers("/api/analytics/**").hasAnyRole("ADMIN", "ANALYST")
@@ -89,6 +125,8 @@ public class SecurityConfig {
 
         http.authenticationProvider(authenticationProvider());
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter(), AuthTokenFilter.class);
+        http.addFilterAfter(usageMeteringFilter(), RateLimitFilter.class);
 
         return http.build();
     }
@@ -1,9 +1,11 @@
 package com.compliantpay.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
+import com.compliantpay.service.AnalyticsService;
+
 import java.util.Map;
 
 @RestController
@@ -11,61 +13,22 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class AnalyticsController {
 
+    @Autowired
+    private AnalyticsService analyticsService;
+
     @PostMapping("/predict-impact")
     public ResponseEntity<Map<String, Object>> predictLegislationImpact(
             @RequestBody Map<String, Object> request) {
         
-        // Mock AI analysis - in production this would call the AI service
         String legislationText = (String) request.get("legislationText");
-        System.out.println("Analyzing impact for: " + legislationText);
-
-        Map<String, Object> analysis = new HashMap<>();
-        analysis.put("projectedAnnualCostIncrease", 38500.0);
-        analysis.put("projectedCostIncrease", 38500);
-        analysis.put("affectedEmployeeCount", 4);
-        analysis.put("monthlyIncrease", 3208);
-        analysis.put("effectiveDate", "2026-01-01");
-        analysis.put("costBreakdown", Map.of(
-            "increasedTaxBurden", 24200,
-            "digitalServicesTax", 4300,
-            "healthcareMandate", 10000
-        ));
-        analysis.put("affectedEmployees", new Object[]{
-            Map.of("name", "Alice Johnson", "additionalCost", 7200),
-            Map.of("name", "Diana Miller", "additionalCost", 9100),
-            Map.of("name", "George Rodriguez", "additionalCost", 7800),
-            Map.of("name", "Bob Williams", "additionalCost", 5200)
-        });
-        analysis.put("recommendations", new String[]{
-            "Consider restructuring bonus payments to occur before Jan 2026",
-            "Increase Q1 2026 payroll budget by approximately 5.3%",
-            "Update payroll system tax tables by Dec 15, 2025",
-            "Evaluate remote work policies for tax optimization"
-        });
-        
-        return ResponseEntity.ok(analysis);
+        if (legislationText == null || legislationText.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(analyticsService.predictLegislationImpact(legislationText, request));
     }
     
     @GetMapping("/payroll-trends")
     public ResponseEntity<Map<String, Object>> getPayrollTrends() {
-        Map<String, Object> trends = new HashMap<>();
-        trends.put("historical", new Object[]{
-            Map.of("month", "May", "cost", 68200),
-            Map.of("month", "Jun", "cost", 68500),
-            Map.of("month", "Jul", "cost", 69100),
-            Map.of("month", "Aug", "cost", 71500),
-            Map.of("month", "Sep", "cost", 71800),
-            Map.of("month", "Oct", "cost", 72300)
-        });
-        trends.put("predicted", new Object[]{
-            Map.of("month", "Nov", "cost", 72500),
-            Map.of("month", "Dec", "cost", 72800),
-            Map.of("month", "Jan", "cost", 76100),
-            Map.of("month", "Feb", "cost", 76550),
-            Map.of("month", "Mar", "cost", 77000),
-            Map.of("month", "Apr", "cost", 77450)
-        });
-        
-        return ResponseEntity.ok(trends);
+        return ResponseEntity.ok(analyticsService.getPayrollTrends());
     }
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken; // Added import
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -21,9 +22,11 @@ import org.springframework.web.bind.annotation.RestController;
 import com.compliantpay.dto.AuthResponse;
 import com.compliantpay.dto.LoginRequest;
 import com.compliantpay.dto.MessageResponse;
+import com.compliantpay.dto.RefreshTokenRequest;
 import com.compliantpay.dto.RegisterRequest;
 import com.compliantpay.model.User;
 import com.compliantpay.repository.UserRepository;
+import com.compliantpay.service.RefreshTokenService;
 import com.compliantpay.util.JwtUtils;
 
 import jakarta.validation.Valid;
@@ -46,6 +49,9 @@ public class AuthController {
     @Autowired // Inject JwtUtils
     JwtUtils jwtUtils;
 
+    @Autowired
+    RefreshTokenService refreshTokenService;
+
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
 
@@ -66,12 +72,40 @@ public class AuthController {
                 .map(GrantedAuthority::getAuthority) // Use method reference
                 .collect(Collectors.toList());
 
+        // Later sessions are renewed with the refresh token instead of another BCrypt check
+        String refreshToken = refreshTokenService.issue(userDetails.getUsername());
+
         // *** Return response with JWT ***
         return ResponseEntity.ok(new AuthResponse(jwt, // Include the token
+                                                 refreshToken,
                                                  userDetails.getUsername(),
                                                  roles));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+
+        User user = userRepository.findByUsername(rotation.getUsername())
+                .filter(User::isEnabled)
+                .orElseThrow(() -> new BadCredentialsException("User no longer exists or is disabled"));
+
+        List<String> roles = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(new AuthResponse(jwtUtils.generateTokenFromUsername(user.getUsername()),
+                                                 rotation.getRefreshToken(),
+                                                 user.getUsername(),
+                                                 roles));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+        return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
+    }
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
         // Check if username is already taken
@@ -1,11 +1,18 @@
 package com.compliantpay.controller;
 
 import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.LedgerCheckpoint;
+import com.compliantpay.model.dto.ChainVerificationDTO;
 import com.compliantpay.service.BlockchainService;
+import com.compliantpay.service.ChainVerificationService;
+import com.compliantpay.util.NdjsonExport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -16,18 +23,44 @@ public class BlockchainController {
     @Autowired
     private BlockchainService blockchainService;
 
+    @Autowired
+    private ChainVerificationService chainVerificationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/transactions")
     public ResponseEntity<List<BlockchainTransaction>> getTransactions() {
         List<BlockchainTransaction> transactions = blockchainService.getTransactionHistory();
         return ResponseEntity.ok(transactions);
     }
     
+    /**
+     * Full ledger as NDJSON in block order, streamed from the ledger store
+     */
+    @GetMapping("/transactions/export")
+    public void exportTransactions(@RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+                                   HttpServletResponse response) throws IOException {
+        NdjsonExport.<BlockchainTransaction>write(response, objectMapper, "ledger", acceptEncoding,
+                blockchainService::forEachTransaction);
+    }
+    
     @GetMapping("/verify/{transactionHash}")
     public ResponseEntity<Boolean> verifyTransaction(@PathVariable String transactionHash) {
         boolean isValid = blockchainService.verifyTransaction(transactionHash);
         return ResponseEntity.ok(isValid);
     }
     
+    @GetMapping("/verify-chain")
+    public ResponseEntity<ChainVerificationDTO> verifyChain(@RequestParam(defaultValue = "false") boolean full) {
+        return ResponseEntity.ok(chainVerificationService.verifyChain(full));
+    }
+    
+    @GetMapping("/checkpoints")
+    public ResponseEntity<List<LedgerCheckpoint>> getCheckpoints() {
+        return ResponseEntity.ok(chainVerificationService.getCheckpoints());
+    }
+    
     @GetMapping("/last-hash")
     public ResponseEntity<String> getLastHash() {
         String lastHash = blockchainService.getLastBlockHash();
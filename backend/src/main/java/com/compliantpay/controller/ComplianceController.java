@@ -5,15 +5,19 @@ import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.compliantpay.model.TaxRule;
+import com.compliantpay.model.TaxRuleSnapshot;
 import com.compliantpay.service.ComplianceService;
-import com.compliantpay.util.SecurityUtils;
 
 @RestController
 @RequestMapping("/api/compliance")
@@ -25,8 +29,8 @@ public class ComplianceController {
 
     @GetMapping("/tax-rules/{jurisdiction}")
     public ResponseEntity<Map<String, Object>> getTaxRules(@PathVariable String jurisdiction) {
-        String clean = SecurityUtils.sanitize(jurisdiction);
-        Map<String, Object> rules = complianceService.getTaxRulesForJurisdictionWithDetails(clean);
+        // Resolved through the jurisdiction registry; HTML-escaping here would break matching
+        Map<String, Object> rules = complianceService.getTaxRulesForJurisdictionWithDetails(jurisdiction);
         return ResponseEntity.ok(rules);
     }
 
@@ -35,8 +39,7 @@ public class ComplianceController {
             @RequestParam String jurisdiction,
             @RequestParam BigDecimal annualIncome) {
         try {
-            String clean = SecurityUtils.sanitize(jurisdiction);
-            BigDecimal taxAmount = complianceService.calculateTax(clean, annualIncome);
+            BigDecimal taxAmount = complianceService.calculateTax(jurisdiction, annualIncome);
             return ResponseEntity.ok(Map.of("calculatedTax", taxAmount));
         } catch (Exception e) {
             // In a real app, handle exceptions more gracefully
@@ -49,4 +52,20 @@ public class ComplianceController {
         String rulesHash = complianceService.getCurrentRulesHash();
         return ResponseEntity.ok(rulesHash);
     }
+    
+    @GetMapping("/rules-version")
+    public ResponseEntity<Map<String, Object>> getRulesVersion() {
+        TaxRuleSnapshot rules = complianceService.getRuleSnapshot();
+        return ResponseEntity.ok(Map.of("version", rules.getVersion(), "rulesHash", rules.getRulesHash()));
+    }
+    
+    /**
+     * Creates or updates a tax rule; every instance switches to the new rule version, while
+     * payroll runs already in progress finish on the version they started with
+     */
+    @PutMapping("/tax-rules")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TaxRule> saveTaxRule(@RequestBody TaxRule rule) {
+        return ResponseEntity.ok(complianceService.saveTaxRule(rule));
+    }
 }
\ No newline at end of file
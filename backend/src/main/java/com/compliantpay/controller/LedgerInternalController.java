@@ -0,0 +1,53 @@
+package com.compliantpay.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.compliantpay.dto.LedgerAppendDTO;
+import com.compliantpay.ledger.LedgerForwarder;
+import com.compliantpay.service.BlockchainService;
+
+/**
+ * Receives ledger appends forwarded by instances that are not the ledger leader. Not reachable
+ * with user credentials; callers authenticate with the shared internal token.
+ */
+@RestController
+@RequestMapping("/api/internal/ledger")
+public class LedgerInternalController {
+    
+    @Autowired
+    private BlockchainService blockchainService;
+    
+    @Value("${app.ledger.leadership.internal-token:}")
+    private String internalToken;
+    
+    @PostMapping("/append")
+    public ResponseEntity<Map<String, List<String>>> append(
+            @RequestHeader(value = LedgerForwarder.TOKEN_HEADER, required = false) String token,
+            @RequestHeader(LedgerForwarder.EPOCH_HEADER) long epoch,
+            @RequestBody Map<String, List<LedgerAppendDTO>> body) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        List<String> hashes = blockchainService.appendAsLeader(body.getOrDefault("entries", List.of()), epoch);
+        return ResponseEntity.ok(Map.of("hashes", hashes));
+    }
+    
+    private boolean authorized(String token) {
+        // An unconfigured token disables the endpoint instead of accepting an empty header
+        return !internalToken.isEmpty() && token != null
+                && MessageDigest.isEqual(internalToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
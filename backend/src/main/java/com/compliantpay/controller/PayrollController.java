@@ -1,5 +1,7 @@
 package com.compliantpay.controller;
 
+import java.io.IOException;
+import java.security.Principal;
 import java.util.List;
 import java.util.UUID;
 
@@ -10,14 +12,19 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.compliantpay.model.PayrollRequest;
 import com.compliantpay.model.PayrollRun;
+import com.compliantpay.model.PayslipLine;
 import com.compliantpay.service.PayrollService;
+import com.compliantpay.util.NdjsonExport;
 import com.compliantpay.util.SecurityUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -28,12 +35,21 @@ public class PayrollController {
     @Autowired
     private PayrollService payrollService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @PostMapping("/run")
-    public ResponseEntity<?> runPayroll(@Valid @RequestBody PayrollRequest request) {
+    public ResponseEntity<?> runPayroll(@Valid @RequestBody PayrollRequest request,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                        Principal principal) {
         try {
             // sanitize pay period string before processing
             request.setPayPeriod(SecurityUtils.sanitize(request.getPayPeriod()));
-            PayrollRun result = payrollService.processPayroll(request);
+            // the header wins over the body so retries from generic HTTP clients are deduplicated too
+            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                request.setIdempotencyKey(idempotencyKey);
+            }
+            PayrollRun result = payrollService.processPayroll(request, principal != null ? principal.getName() : null);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
@@ -48,6 +64,16 @@ public class PayrollController {
         return ResponseEntity.ok(history);
     }
     
+    /**
+     * All payroll runs as NDJSON, newest first, streamed from a database cursor
+     */
+    @GetMapping("/history/export")
+    public void exportPayrollHistory(@RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+                                     HttpServletResponse response) throws IOException {
+        NdjsonExport.<PayrollRun>write(response, objectMapper, "payroll-history", acceptEncoding,
+                payrollService::forEachPayrollRun);
+    }
+    
     @GetMapping("/run/{id}")
     public ResponseEntity<PayrollRun> getPayrollRun(@PathVariable UUID id) {
         return payrollService.getPayrollRun(id)
@@ -55,6 +81,14 @@ public class PayrollController {
             .orElse(ResponseEntity.notFound().build());
     }
     
+    @GetMapping("/run/{id}/payslips")
+    public ResponseEntity<List<PayslipLine>> getPayslipLines(@PathVariable UUID id) {
+        if (payrollService.getPayrollRun(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(payrollService.getPayslipLines(id));
+    }
+    
     // Helper class for error responses
     public static class ErrorResponse {
         private String error;
@@ -0,0 +1,83 @@
+package com.compliantpay.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Stand-in for ai-service's legislation analysis, active only with the "stub" profile. Employees
+ * are read from the request one at a time, like the real service would, and every employee is
+ * assumed to cost 5% more, so results are deterministic for a given workforce.
+ */
+@RestController
+@Profile("stub")
+@RequestMapping("/api/public/stub/ai/analyze")
+public class StubAiServiceController {
+    
+    private static final BigDecimal INCREASE_RATE = new BigDecimal("0.05");
+    private static final int MAX_AFFECTED_LISTED = 10;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Simulated model latency per call
+    @Value("${app.ai-service.stub.latency-ms:0}")
+    private long latencyMs;
+    
+    @PostMapping("/legislation")
+    public ResponseEntity<Map<String, Object>> analyzeLegislation(HttpServletRequest request) throws IOException, InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        int employees = 0;
+        List<Map<String, Object>> affected = new ArrayList<>();
+        try (InputStream body = request.getInputStream(); JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() != JsonToken.FIELD_NAME || !"current_employee_data".equals(parser.currentName())) {
+                    continue;
+                }
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode employee = objectMapper.readTree(parser);
+                    BigDecimal cost = employee.path("salary").decimalValue().multiply(INCREASE_RATE).setScale(2, RoundingMode.HALF_UP);
+                    total = total.add(cost);
+                    employees++;
+                    if (affected.size() < MAX_AFFECTED_LISTED) {
+                        affected.add(Map.of("name", employee.path("name").asText(), "additionalCost", cost));
+                    }
+                }
+            }
+        }
+        
+        Map<String, Object> analysis = new LinkedHashMap<>();
+        analysis.put("projected_cost_increase", total);
+        analysis.put("affected_employee_count", employees);
+        analysis.put("monthly_increase", total.divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP));
+        analysis.put("effective_date", "2026-01-01");
+        analysis.put("cost_breakdown", Map.of("increasedTaxBurden", total));
+        analysis.put("affected_employees", affected);
+        analysis.put("recommendations", List.of("Stub analysis: every employee assumed to cost 5% more"));
+        return ResponseEntity.ok(analysis);
+    }
+}
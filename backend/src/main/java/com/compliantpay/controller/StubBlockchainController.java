@@ -0,0 +1,90 @@
+package com.compliantpay.controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.compliantpay.util.HashUtil;
+
+/**
+ * Stand-in for blockchain-service's anchoring API, active only with the "stub" profile so the
+ * backend can be exercised end to end without the chain stack. Transaction hashes are derived
+ * deterministically from the digest and source. Every digest is its own one-leaf Merkle tree; its
+ * receipt is answered as sent and reads as confirmed on the first lookup.
+ */
+@RestController
+@Profile("stub")
+@RequestMapping("/api/public/stub/blockchain/anchor")
+public class StubBlockchainController {
+    
+    // Simulated chain latency per call
+    @Value("${app.blockchain.stub.latency-ms:0}")
+    private long latencyMs;
+    
+    private final Map<String, Map<String, Object>> receipts = new ConcurrentHashMap<>();
+    
+    @PostMapping("/proof")
+    public ResponseEntity<Map<String, Object>> anchorProof(@RequestBody Map<String, Object> body) throws InterruptedException {
+        simulateLatency();
+        return ResponseEntity.ok(submit(body));
+    }
+    
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> anchorBatch(@RequestBody Map<String, List<Map<String, Object>>> body) throws InterruptedException {
+        simulateLatency();
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map<String, Object> item : body.getOrDefault("items", List.of())) {
+            results.add(submit(item));
+        }
+        return ResponseEntity.ok(Map.of("results", results));
+    }
+    
+    @GetMapping("/receipts/{receiptId}")
+    public ResponseEntity<Map<String, Object>> getReceipt(@PathVariable String receiptId) throws InterruptedException {
+        simulateLatency();
+        Map<String, Object> receipt = receipts.computeIfPresent(receiptId, (id, submitted) -> {
+            Map<String, Object> confirmed = new HashMap<>(submitted);
+            confirmed.put("status", "CONFIRMED");
+            confirmed.put("blockNumber", 1);
+            return confirmed;
+        });
+        return receipt != null ? ResponseEntity.ok(receipt) : ResponseEntity.notFound().build();
+    }
+    
+    private Map<String, Object> submit(Map<String, Object> item) {
+        String digest = String.valueOf(item.getOrDefault("digest", ""));
+        String txHash = txHash(digest, item.get("source"));
+        Map<String, Object> receipt = new HashMap<>();
+        receipt.put("receiptId", txHash.substring(2, 34));
+        receipt.put("digest", digest);
+        receipt.put("status", "SUBMITTED");
+        receipt.put("txHash", txHash);
+        receipt.put("merkleRoot", HashUtil.generateSHA256Hash(digest));
+        receipt.put("leafIndex", 0);
+        receipt.put("merkleProof", List.of());
+        receipts.putIfAbsent((String) receipt.get("receiptId"), receipt);
+        return receipt;
+    }
+    
+    private void simulateLatency() throws InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+    }
+    
+    private static String txHash(String digest, Object source) {
+        return "0x" + HashUtil.generateSHA256Hash(digest + ":" + source);
+    }
+}
@@ -3,6 +3,7 @@ package com.compliantpay.controller;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication; // Moved import
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController; // Moved import
 
 import com.compliantpay.model.User; // Moved import
+import com.compliantpay.service.UsageMeteringService;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -25,6 +27,9 @@ public class UserController {
     // @Autowired
     // UserRepository userRepository;
 
+    @Autowired
+    private UsageMeteringService usageMeteringService;
+
     @GetMapping("/me")
     @PreAuthorize("isAuthenticated()") // Ensure user is logged in
     public ResponseEntity<?> getCurrentUser() {
@@ -71,6 +76,12 @@ public class UserController {
         }
     }
 
+    @GetMapping("/me/usage")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Map<String, Long>> getCurrentUsage(Authentication authentication) {
+        return ResponseEntity.ok(usageMeteringService.getMonthlyUsage(authentication.getName()));
+    }
+
     // Example of an admin-only endpoint
     @GetMapping("/admin-check")
     @PreAuthorize("hasRole('ADMIN')") // Only users with ROLE_ADMIN can access
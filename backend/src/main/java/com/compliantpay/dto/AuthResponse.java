@@ -8,6 +8,7 @@ public class AuthResponse {
     private String username;
     private List<String> roles;
     private String token; // For JWT
+    private String refreshToken; // Exchanged at /api/auth/refresh for a new token pair
 
     // Constructor for simple message
     public AuthResponse(String message) {
@@ -22,6 +23,11 @@ public class AuthResponse {
         this.message = "Login successful!";
     }
 
+    public AuthResponse(String token, String refreshToken, String username, List<String> roles) {
+        this(token, username, roles);
+        this.refreshToken = refreshToken;
+    }
+
     // Getters and Setters
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
@@ -31,4 +37,6 @@ public class AuthResponse {
     public void setRoles(List<String> roles) { this.roles = roles; }
     public String getToken() { return token; }
     public void setToken(String token) { this.token = token; }
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.compliantpay.dto;
+
+/**
+ * One ledger entry forwarded to the ledger leader. The data hash is computed by the instance that
+ * received the change; only linking it into the chain happens on the leader.
+ */
+public class LedgerAppendDTO {
+    private String transactionType;
+    private String details;
+    private String dataHash;
+
+    public LedgerAppendDTO() {
+    }
+
+    public LedgerAppendDTO(String transactionType, String details, String dataHash) {
+        this.transactionType = transactionType;
+        this.details = details;
+        this.dataHash = dataHash;
+    }
+
+    // Getters and Setters
+    public String getTransactionType() { return transactionType; }
+    public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
+
+    public String getDetails() { return details; }
+    public void setDetails(String details) { this.details = details; }
+
+    public String getDataHash() { return dataHash; }
+    public void setDataHash(String dataHash) { this.dataHash = dataHash; }
+}
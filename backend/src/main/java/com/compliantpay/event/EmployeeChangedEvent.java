@@ -0,0 +1,25 @@
+package com.compliantpay.event;
+
+import com.compliantpay.model.Employee;
+
+/**
+ * Published by the employee service after an employee row is created, updated or deactivated
+ */
+public class EmployeeChangedEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DEACTIVATED
+    }
+
+    private final ChangeType changeType;
+    private final Employee employee;
+
+    public EmployeeChangedEvent(ChangeType changeType, Employee employee) {
+        this.changeType = changeType;
+        this.employee = employee;
+    }
+
+    public ChangeType getChangeType() { return changeType; }
+
+    public Employee getEmployee() { return employee; }
+}
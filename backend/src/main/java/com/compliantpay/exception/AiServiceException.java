@@ -0,0 +1,22 @@
+package com.compliantpay.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The ai-service could not be reached or returned an error
+ */
+public class AiServiceException extends CustomException {
+
+    public AiServiceException(String message) {
+        super("AI service unavailable: " + message, "AI_SERVICE_UNAVAILABLE", message);
+    }
+
+    public AiServiceException(String message, Throwable cause) {
+        super("AI service unavailable: " + message, cause, "AI_SERVICE_UNAVAILABLE", message);
+    }
+
+    @Override
+    public int getHttpStatus() {
+        return HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+}
@@ -6,6 +6,7 @@ import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +24,8 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
+import com.compliantpay.logging.TraceIdFilter;
+
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 
@@ -323,7 +326,9 @@ public class GlobalExceptionHandler {
      * Generate a unique trace ID for request tracking
      */
     private String generateTraceId() {
-        return UUID.randomUUID().toString().substring(0, 8);
+        // Prefer the request's trace id so the response can be matched to its log lines
+        String traceId = MDC.get(TraceIdFilter.MDC_KEY);
+        return traceId != null ? traceId : UUID.randomUUID().toString().substring(0, 8);
     }
     
     /**
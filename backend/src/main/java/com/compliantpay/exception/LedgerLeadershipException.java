@@ -0,0 +1,22 @@
+package com.compliantpay.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * A ledger append could not reach the ledger leader, or reached an instance that is no longer leader
+ */
+public class LedgerLeadershipException extends CustomException {
+
+    public LedgerLeadershipException(String message) {
+        super("Ledger leader unavailable: " + message, "LEDGER_LEADER_UNAVAILABLE", message);
+    }
+
+    public LedgerLeadershipException(String message, Throwable cause) {
+        super("Ledger leader unavailable: " + message, cause, "LEDGER_LEADER_UNAVAILABLE", message);
+    }
+
+    @Override
+    public int getHttpStatus() {
+        return HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+}
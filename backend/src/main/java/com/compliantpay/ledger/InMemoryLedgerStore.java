@@ -0,0 +1,68 @@
+package com.compliantpay.ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.LedgerCheckpoint;
+
+/**
+ * Keeps the ledger in process memory only; it starts empty on every restart
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLedgerStore implements LedgerStore {
+
+    private final List<BlockchainTransaction> transactions = new ArrayList<>();
+    private final TreeMap<Integer, LedgerCheckpoint> checkpoints = new TreeMap<>();
+
+    @Override
+    public synchronized void append(List<BlockchainTransaction> batch) {
+        transactions.addAll(batch);
+    }
+
+    @Override
+    public synchronized BlockchainTransaction tip() {
+        return transactions.isEmpty() ? null : transactions.get(transactions.size() - 1);
+    }
+
+    @Override
+    public synchronized long size() {
+        return transactions.size();
+    }
+
+    @Override
+    public void forEachFrom(long index, Consumer<BlockchainTransaction> action) {
+        List<BlockchainTransaction> from;
+        synchronized (this) {
+            from = new ArrayList<>(transactions.subList((int) Math.min(index, transactions.size()), transactions.size()));
+        }
+        from.forEach(action);
+    }
+
+    @Override
+    public synchronized List<BlockchainTransaction> readAll() {
+        return new ArrayList<>(transactions);
+    }
+
+    @Override
+    public synchronized boolean isConfirmed(String transactionHash) {
+        return transactions.stream()
+                .anyMatch(tx -> tx.getTransactionHash().equals(transactionHash) && "CONFIRMED".equals(tx.getStatus()));
+    }
+
+    @Override
+    public synchronized void saveCheckpoint(LedgerCheckpoint checkpoint) {
+        checkpoints.putIfAbsent(checkpoint.getEntryCount(), checkpoint);
+    }
+
+    @Override
+    public synchronized List<LedgerCheckpoint> checkpoints() {
+        return new ArrayList<>(checkpoints.values());
+    }
+}
@@ -0,0 +1,131 @@
+package com.compliantpay.ledger;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.LedgerCheckpoint;
+import com.compliantpay.repository.BlockchainTransactionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Keeps the ledger in the blockchain_transactions table. Being shared by all instances, it lets a
+ * new ledger leader continue the chain where the previous one stopped. Verification checkpoints
+ * go to ledger_checkpoints.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.store.type", havingValue = "jpa")
+public class JpaLedgerStore implements LedgerStore {
+
+    private static final String INSERT_CHECKPOINT_SQL = "INSERT INTO ledger_checkpoints "
+            + "(entry_count, transaction_hash, created_at, signature) SELECT ?, ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM ledger_checkpoints WHERE entry_count = ?)";
+    private static final String CHECKPOINTS_SQL = "SELECT entry_count, transaction_hash, created_at, signature "
+            + "FROM ledger_checkpoints ORDER BY entry_count";
+
+    @Autowired
+    private BlockchainTransactionRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LedgerLeaderElection leaderElection;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Entries read per query when walking the chain
+    @Value("${app.ledger.store.jpa.page-size:1000}")
+    private int pageSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void append(List<BlockchainTransaction> transactions) {
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(transactions));
+    }
+
+    @Override
+    public long write(List<BlockchainTransaction> transactions, long epoch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            leaderElection.fence(epoch);
+            repository.saveAll(transactions);
+        });
+        return transactions.get(transactions.size() - 1).getBlockNumber();
+    }
+
+    @Override
+    public BlockchainTransaction tip() {
+        return repository.findFirstByOrderByBlockNumberDesc().orElse(null);
+    }
+
+    @Override
+    public long size() {
+        return repository.count();
+    }
+
+    @Override
+    public void forEachFrom(long index, Consumer<BlockchainTransaction> action) {
+        // Block numbers start at 1, so the entry at index i has block number i + 1
+        long after = index;
+        List<BlockchainTransaction> page;
+        do {
+            page = repository.findByBlockNumberGreaterThanOrderByBlockNumberAsc(after, PageRequest.of(0, pageSize));
+            for (BlockchainTransaction transaction : page) {
+                action.accept(transaction);
+                // A request's open persistence context would otherwise keep every page read so far
+                entityManager.detach(transaction);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getBlockNumber();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    @Override
+    public boolean isConfirmed(String transactionHash) {
+        return repository.existsByTransactionHashAndStatus(transactionHash, "CONFIRMED");
+    }
+
+    @Override
+    public void saveCheckpoint(LedgerCheckpoint checkpoint) {
+        try {
+            jdbcTemplate.update(INSERT_CHECKPOINT_SQL, checkpoint.getEntryCount(), checkpoint.getTransactionHash(),
+                    Timestamp.valueOf(checkpoint.getCreatedAt()), checkpoint.getSignature(), checkpoint.getEntryCount());
+        } catch (DuplicateKeyException e) {
+            // Another instance verified the same entries at the same time
+        }
+    }
+
+    @Override
+    public List<LedgerCheckpoint> checkpoints() {
+        return jdbcTemplate.query(CHECKPOINTS_SQL, (resultSet, row) -> new LedgerCheckpoint(
+                resultSet.getInt("entry_count"),
+                resultSet.getString("transaction_hash"),
+                resultSet.getTimestamp("created_at").toLocalDateTime(),
+                resultSet.getString("signature")));
+    }
+}
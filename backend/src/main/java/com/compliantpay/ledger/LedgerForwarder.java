@@ -0,0 +1,217 @@
+package com.compliantpay.ledger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.dto.LedgerAppendDTO;
+import com.compliantpay.exception.LedgerLeadershipException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Sends ledger appends from a non-leader instance to the ledger leader. Appends arriving within a
+ * short window, from any number of threads, travel in one {@code POST /api/internal/ledger/append}
+ * call, and the leader links the whole batch under a single lock. Entries of one call stay
+ * together and in order.
+ *
+ * Failed calls are not retried: the leader may already have linked the entries, and appending
+ * them twice would be worse than reporting the failure.
+ */
+@Component
+public class LedgerForwarder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerForwarder.class);
+
+    public static final String TOKEN_HEADER = "X-Ledger-Token";
+    // Epoch of the lease the leader was addressed under; it refuses appends meant for another epoch
+    public static final String EPOCH_HEADER = "X-Ledger-Epoch";
+
+    @Autowired
+    private LedgerLeaderElection leaderElection;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ledger.leadership.internal-token:}")
+    private String internalToken;
+
+    @Value("${app.ledger.forward.batch-window-ms:5}")
+    private long batchWindowMs;
+
+    // Entries per call to the leader; one caller's entries are never split
+    @Value("${app.ledger.forward.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${app.ledger.forward.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private HttpClient httpClient;
+
+    private final ConcurrentLinkedQueue<PendingAppend> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeoutMs))
+                .build();
+    }
+
+    /**
+     * Appends the entries through the leader and waits for their transaction hashes.
+     *
+     * @throws LedgerLeadershipException when there is no leader or it could not be reached in time
+     */
+    public List<String> forward(List<LedgerAppendDTO> entries) {
+        PendingAppend append = new PendingAppend(entries);
+        pending.add(append);
+        if (pendingCount.addAndGet(entries.size()) >= maxBatchSize) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(batchWindowMs, TimeUnit.MILLISECONDS).execute(this::flush);
+        }
+        try {
+            return append.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LedgerLeadershipException("interrupted while waiting for the leader", e);
+        } catch (TimeoutException e) {
+            throw new LedgerLeadershipException("no answer within " + timeoutMs + " ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof LedgerLeadershipException) {
+                throw (LedgerLeadershipException) cause;
+            }
+            throw new LedgerLeadershipException(String.valueOf(cause.getMessage()), cause);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<PendingAppend> batch;
+        while (!(batch = drain()).isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<PendingAppend> drain() {
+        List<PendingAppend> batch = new ArrayList<>();
+        int entries = 0;
+        PendingAppend append;
+        while (entries < maxBatchSize && (append = pending.poll()) != null) {
+            pendingCount.addAndGet(-append.entries.size());
+            entries += append.entries.size();
+            batch.add(append);
+        }
+        return batch;
+    }
+
+    private void send(List<PendingAppend> batch) {
+        LedgerLeaderElection.Lease leader = leaderElection.getLeader();
+        if (leader == null) {
+            failAll(batch, new LedgerLeadershipException("no instance holds the ledger lease"));
+            return;
+        }
+        String endpoint = leader.getEndpoint();
+        List<LedgerAppendDTO> entries = new ArrayList<>();
+        for (PendingAppend append : batch) {
+            entries.addAll(append.entries);
+        }
+        long startNanos = System.nanoTime();
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(endpoint + "/api/internal/ledger/append"))
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("Content-Type", "application/json")
+                    .header(TOKEN_HEADER, internalToken)
+                    .header(EPOCH_HEADER, Long.toString(leader.getEpoch()))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of("entries", entries))))
+                    .build();
+        } catch (IOException e) {
+            failAll(batch, new LedgerLeadershipException("could not encode ledger entries", e));
+            return;
+        }
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            try {
+                if (error != null) {
+                    throw new LedgerLeadershipException("error calling " + endpoint + ": " + error.getMessage(), error);
+                }
+                if (response.statusCode() >= 400) {
+                    throw new LedgerLeadershipException(endpoint + " returned " + response.statusCode());
+                }
+                JsonNode hashes = objectMapper.readTree(response.body()).path("hashes");
+                if (!hashes.isArray() || hashes.size() != entries.size()) {
+                    throw new LedgerLeadershipException("malformed append response from " + endpoint);
+                }
+                int next = 0;
+                for (PendingAppend append : batch) {
+                    List<String> result = new ArrayList<>(append.entries.size());
+                    for (int i = 0; i < append.entries.size(); i++) {
+                        result.add(hashes.get(next++).asText());
+                    }
+                    append.result.complete(result);
+                }
+                record("success", startNanos);
+            } catch (IOException | RuntimeException e) {
+                record("failure", startNanos);
+                logger.warn("Forwarding {} ledger entries failed: {}", entries.size(), e.getMessage());
+                failAll(batch, e instanceof LedgerLeadershipException
+                        ? (LedgerLeadershipException) e
+                        : new LedgerLeadershipException(String.valueOf(e.getMessage()), e));
+            }
+        });
+    }
+
+    private static void failAll(List<PendingAppend> batch, LedgerLeadershipException error) {
+        for (PendingAppend append : batch) {
+            append.result.completeExceptionally(error);
+        }
+    }
+
+    private void record(String outcome, long startNanos) {
+        Timer.builder("ledger.forward")
+                .description("Time to append a forwarded batch on the ledger leader")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static class PendingAppend {
+        private final List<LedgerAppendDTO> entries;
+        private final CompletableFuture<List<String>> result = new CompletableFuture<>();
+
+        PendingAppend(List<LedgerAppendDTO> entries) {
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.compliantpay.ledger;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.exception.LedgerLeadershipException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Elects the single instance that appends to the ledger. Leadership is a lease on the one row of
+ * ledger_leader: the leader extends it on every tick, and any instance may take it over once it
+ * has expired. Lease expiry is computed and compared with the database clock only, so clock skew
+ * between instances cannot make two of them believe they hold the lease.
+ *
+ * Every acquisition increments the row's epoch, which serves as a fencing token: the jpa store
+ * writes an append only while the writer's epoch is still current and the lease unexpired, and
+ * forwarded appends carry the epoch of the leader they were addressed to. A leader paused past its
+ * lease therefore cannot extend the chain after a successor took over. It also stops appending a
+ * renew interval before its lease runs out, so that case stays rare.
+ *
+ * With leadership disabled every instance is its own leader, as in a single-instance deployment.
+ * Leadership requires the jpa ledger store: the memory and segment stores are local to one
+ * instance, so a new leader would not see the entries of the previous one.
+ */
+@Component
+public class LedgerLeaderElection {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerLeaderElection.class);
+
+    // Renewing a live lease under the same epoch keeps it; any other acquisition starts a new epoch
+    private static final String ACQUIRE_SQL =
+            "UPDATE ledger_leader SET owner = ?, endpoint = ?, "
+            + "epoch = CASE WHEN owner = ? AND epoch = ? AND lease_expires_at >= CURRENT_TIMESTAMP THEN epoch ELSE epoch + 1 END, "
+            + "lease_expires_at = CURRENT_TIMESTAMP + %s "
+            + "WHERE id = 1 AND (owner = ? OR owner IS NULL OR lease_expires_at < CURRENT_TIMESTAMP)";
+    private static final String EPOCH_SQL = "SELECT epoch FROM ledger_leader WHERE id = 1 AND owner = ?";
+    private static final String LEADER_SQL =
+            "SELECT endpoint, epoch FROM ledger_leader WHERE id = 1 AND lease_expires_at >= CURRENT_TIMESTAMP";
+    // Locks the row until the caller's transaction ends, so the lease cannot change hands mid-append
+    private static final String FENCE_SQL =
+            "UPDATE ledger_leader SET epoch = epoch WHERE id = 1 AND epoch = ? AND lease_expires_at >= CURRENT_TIMESTAMP";
+    private static final String RELEASE_SQL = "UPDATE ledger_leader SET owner = NULL, lease_expires_at = NULL WHERE id = 1 AND owner = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ledger.leadership.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ledger.store.type:memory}")
+    private String storeType;
+
+    // Base URL (including the context path) other instances forward appends to
+    @Value("${app.ledger.leadership.advertised-url:http://localhost:8080/api}")
+    private String advertisedUrl;
+
+    @Value("${app.ledger.leadership.lease-ms:10000}")
+    private long leaseMs;
+
+    @Value("${app.ledger.leadership.renew-interval-ms:3000}")
+    private long renewIntervalMs;
+
+    private String instanceId;
+    private String acquireSql;
+    // System.nanoTime() up to which this instance may append; 0 when it is not the leader
+    private volatile long leaderUntilNanos;
+    private volatile Lease leader;
+    // Epoch of this instance's latest lease
+    private volatile long epoch;
+
+    @PostConstruct
+    public void init() {
+        if (enabled && !"jpa".equals(storeType)) {
+            throw new IllegalStateException("app.ledger.leadership.enabled requires app.ledger.store.type=jpa, not "
+                    + storeType + ": the other stores are not shared between instances");
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        instanceId = host + ":" + UUID.randomUUID().toString().substring(0, 8);
+        acquireSql = String.format(ACQUIRE_SQL, "INTERVAL '" + BigDecimal.valueOf(leaseMs, 3).toPlainString() + "' SECOND");
+        Gauge.builder("ledger.leader", this, election -> election.isLeader() ? 1 : 0)
+                .description("1 while this instance appends to the ledger")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLeader() {
+        return !enabled || System.nanoTime() < leaderUntilNanos;
+    }
+
+    /**
+     * Epoch of this instance's lease. Changes whenever this instance takes over leadership, so the
+     * writer knows to reload the tip another leader may have moved on; always 0 with leadership
+     * disabled.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * The current leader's lease, or null while no instance holds it
+     */
+    public Lease getLeader() {
+        return leader;
+    }
+
+    /**
+     * Fails unless {@code epoch} is still the current epoch and its lease has not expired. Run
+     * inside the transaction that writes an append: the row stays locked until it commits, so no
+     * other instance takes the lease over in between.
+     *
+     * @throws LedgerLeadershipException if leadership moved on
+     */
+    public void fence(long epoch) {
+        if (jdbcTemplate.update(FENCE_SQL, epoch) == 0) {
+            throw new LedgerLeadershipException("ledger leadership epoch " + epoch + " is no longer current");
+        }
+    }
+
+    /**
+     * Stops appending at once, after an append found this instance's epoch outdated
+     */
+    public void stepDown(long staleEpoch) {
+        if (enabled && epoch == staleEpoch && leaderUntilNanos != 0) {
+            leaderUntilNanos = 0;
+            leader = null;
+            logger.warn("Instance {} lost ledger leadership epoch {}", instanceId, staleEpoch);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.leadership.renew-interval-ms:3000}")
+    public void renew() {
+        if (!enabled) {
+            return;
+        }
+        boolean wasLeader = isLeader();
+        long started = System.nanoTime();
+        try {
+            int acquired = jdbcTemplate.update(acquireSql, instanceId, advertisedUrl, instanceId, epoch, instanceId);
+            if (acquired > 0) {
+                Long current = jdbcTemplate.queryForObject(EPOCH_SQL, Long.class, instanceId);
+                if (current != epoch) {
+                    // Before the lease is visible, so the writer reloads the tip on its first append
+                    epoch = current;
+                    logger.info("Instance {} is now the ledger leader in epoch {}", instanceId, current);
+                }
+                // Measured from before the update, less one interval as margin for the time the update took
+                leaderUntilNanos = started + TimeUnit.MILLISECONDS.toNanos(leaseMs - renewIntervalMs);
+                leader = new Lease(advertisedUrl, current);
+                return;
+            }
+            leaderUntilNanos = 0;
+            leader = jdbcTemplate.query(LEADER_SQL,
+                    resultSet -> resultSet.next() ? new Lease(resultSet.getString(1), resultSet.getLong(2)) : null);
+            if (wasLeader) {
+                logger.warn("Instance {} lost ledger leadership to {}", instanceId,
+                        leader != null ? leader.getEndpoint() : null);
+            }
+        } catch (DataAccessException e) {
+            // Without a renewal the lease runs out on its own; appending stops in time either way
+            logger.warn("Ledger leadership renewal failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!enabled || !isLeader()) {
+            return;
+        }
+        leaderUntilNanos = 0;
+        try {
+            // Lets another instance take over at its next tick instead of waiting for the lease
+            jdbcTemplate.update(RELEASE_SQL, instanceId);
+        } catch (DataAccessException e) {
+            logger.warn("Could not release ledger leadership: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Where the leader takes appends, and the epoch of its lease
+     */
+    public static class Lease {
+        private final String endpoint;
+        private final long epoch;
+
+        Lease(String endpoint, long epoch) {
+            this.endpoint = endpoint;
+            this.epoch = epoch;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+    }
+}
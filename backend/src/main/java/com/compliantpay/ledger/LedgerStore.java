@@ -0,0 +1,89 @@
+package com.compliantpay.ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.LedgerCheckpoint;
+
+/**
+ * Storage for the sealed ledger chain, selected with {@code app.ledger.store.type}:
+ * {@code memory} (default), {@code jpa} (the blockchain_transactions table) or {@code segment}
+ * (append-only segment files). Appends arrive in block order from the single writer in
+ * BlockchainServiceImpl; reads may run concurrently with them and see a committed prefix.
+ * Verification checkpoints are kept with the chain they cover, so they last as long as it does.
+ */
+public interface LedgerStore {
+
+    /**
+     * Stores sealed transactions in block order. They are durable once this returns.
+     */
+    void append(List<BlockchainTransaction> transactions);
+
+    /**
+     * Writes sealed transactions in block order like {@link #append}, but may return before they
+     * are durable; pass the result to {@link #awaitDurable}. Lets the writer release its lock before
+     * waiting, so stores that force to disk can cover several writers with one force.
+     *
+     * @return the ledger size once these transactions are included
+     */
+    default long write(List<BlockchainTransaction> transactions) {
+        append(transactions);
+        return transactions.get(transactions.size() - 1).getBlockNumber();
+    }
+
+    /**
+     * Like {@link #write}, fenced by the ledger leadership epoch: a shared store writes the
+     * transactions only while {@code epoch} is still current, and throws
+     * {@link com.compliantpay.exception.LedgerLeadershipException} otherwise. Stores local to one
+     * instance have no other writer and ignore it.
+     */
+    default long write(List<BlockchainTransaction> transactions, long epoch) {
+        return write(transactions);
+    }
+
+    /**
+     * Waits until the ledger is durable up to the given size
+     */
+    default void awaitDurable(long size) {
+    }
+
+    /**
+     * The newest transaction, or null while the ledger is empty
+     */
+    BlockchainTransaction tip();
+
+    long size();
+
+    /**
+     * Passes every transaction to the action in block order, without holding the whole ledger
+     * in memory where the store allows it
+     */
+    default void forEach(Consumer<BlockchainTransaction> action) {
+        forEachFrom(0, action);
+    }
+
+    /**
+     * Like {@link #forEach}, starting at the zero-based index; the entries before it are not read
+     */
+    void forEachFrom(long index, Consumer<BlockchainTransaction> action);
+
+    boolean isConfirmed(String transactionHash);
+
+    /**
+     * Stores a verification checkpoint unless one already exists at its entry count
+     */
+    void saveCheckpoint(LedgerCheckpoint checkpoint);
+
+    /**
+     * Stored verification checkpoints by ascending entry count
+     */
+    List<LedgerCheckpoint> checkpoints();
+
+    default List<BlockchainTransaction> readAll() {
+        List<BlockchainTransaction> transactions = new ArrayList<>();
+        forEach(transactions::add);
+        return transactions;
+    }
+}
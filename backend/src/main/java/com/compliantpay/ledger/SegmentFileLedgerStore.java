@@ -0,0 +1,563 @@
+package com.compliantpay.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.LedgerCheckpoint;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the ledger in append-only segment files of fixed-size records. Segments are preallocated,
+ * written sequentially through their {@link FileChannel} and read through a read-only memory
+ * mapping, so walking the chain or checking an entry decodes straight from the page cache. A
+ * record's position follows from its index, so the only index kept is transaction hash to index.
+ *
+ * <pre>
+ * segment  header: long magic, int record size, int capacity; then capacity records
+ * record   int body length (0 = free slot), int CRC32C of the body, body:
+ *          long blockNumber, long timestamp second + int nano, long createdAt second + int nano,
+ *          long id high + long id low, then transactionType, details, transactionHash, dataHash,
+ *          previousHash, status as short length + UTF-8
+ * </pre>
+ *
+ * Each batch is written in one positional write per segment. Forcing is a group commit: the first
+ * writer to wait forces everything written so far, and writers that queued behind it find their
+ * records already durable, so concurrent batches share one fsync. Readers only see forced records.
+ * A failed force stops the store, because what reached the disk is unknown. On startup the newest
+ * segment is scanned up to the first record that is torn or out of sequence; everything from there
+ * on is zeroed, so a crash mid-append loses at most the batches that were not yet forced.
+ *
+ * A segment is created under a temporary name and renamed once its header and preallocation are
+ * forced, so a crash never leaves a half-created segment behind; leftovers are deleted on startup.
+ * Every segment must have the configured record size.
+ *
+ * Verification checkpoints are appended to checkpoints.log in the same directory, one line each:
+ * entry count, transaction hash, creation time and signature. A torn last line is cut off on startup.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.store.type", havingValue = "segment")
+public class SegmentFileLedgerStore implements LedgerStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentFileLedgerStore.class);
+
+    private static final long MAGIC = 0x43504c4544474552L; // "CPLEDGER"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int FIXED_BODY_SIZE = Long.BYTES * 5 + Integer.BYTES * 2;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CHECKPOINT_FILE = "checkpoints.log";
+
+    @Value("${app.ledger.store.segment.directory:./data/ledger}")
+    private String directory;
+
+    @Value("${app.ledger.store.segment.record-size:1024}")
+    private int recordSize;
+
+    @Value("${app.ledger.store.segment.records-per-segment:65536}")
+    private int recordsPerSegment;
+
+    // Keyed by the ledger index of the segment's first record
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> indexByHash = new ConcurrentHashMap<>();
+    private final CRC32C crc = new CRC32C();
+    // Not synchronized: appends write and force the channel, which would pin a virtual thread
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Held by the writer forcing on behalf of everyone who wrote before it
+    private final ReentrantLock forceLock = new ReentrantLock();
+    // Records written to the channels, forced or not
+    private volatile long writtenSize;
+    // Records visible to readers; published after the records are forced
+    private volatile long size;
+    // Set when a force fails; every later write fails too
+    private volatile IOException failure;
+    private final ConcurrentSkipListMap<Integer, LedgerCheckpoint> checkpoints = new ConcurrentSkipListMap<>();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private FileChannel checkpointChannel;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if ((long) recordSize * recordsPerSegment + HEADER_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Ledger segments must stay below 2 GB to be mapped");
+        }
+        Path root = Paths.get(directory);
+        Files.createDirectories(root);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, "*" + SEGMENT_SUFFIX + TEMP_SUFFIX)) {
+            for (Path temp : stream) {
+                logger.warn("Deleting ledger segment {} that was never completed", temp);
+                Files.delete(temp);
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        for (int i = 0; i < files.size(); i++) {
+            Segment segment = Segment.open(files.get(i));
+            boolean last = i == files.size() - 1;
+            if (segment == null && last) {
+                // Created in place by an older version and torn before anything was appended to it
+                logger.warn("Deleting torn ledger segment {}", files.get(i));
+                Files.delete(files.get(i));
+                break;
+            }
+            if (segment == null) {
+                throw new IllegalStateException("Ledger segment " + files.get(i) + " is torn");
+            }
+            if (segment.recordSize != recordSize) {
+                segment.channel.close();
+                throw new IllegalStateException("Ledger segment " + files.get(i) + " holds " + segment.recordSize
+                        + " byte records, but app.ledger.store.segment.record-size is " + recordSize);
+            }
+            if (segment.firstIndex != size) {
+                throw new IllegalStateException("Ledger segment " + files.get(i) + " does not continue at entry " + size);
+            }
+            recover(segment, last);
+            segments.put(segment.firstIndex, segment);
+            size += segment.count;
+        }
+        writtenSize = size;
+        loadCheckpoints(root.resolve(CHECKPOINT_FILE));
+        logger.info("Opened segment ledger in {}: {} entries in {} segments", root.toAbsolutePath(), size, segments.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            checkpointChannel.close();
+        } catch (IOException e) {
+            logger.warn("Error closing ledger checkpoints: {}", e.getMessage());
+        }
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                logger.warn("Error closing ledger segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void append(List<BlockchainTransaction> transactions) {
+        if (!transactions.isEmpty()) {
+            awaitDurable(write(transactions));
+        }
+    }
+
+    @Override
+    public long write(List<BlockchainTransaction> transactions) {
+        // Encoded in full first, so an entry that does not fit fails the batch before anything is written
+        ByteBuffer batch = ByteBuffer.allocate(transactions.size() * recordSize);
+        for (int i = 0; i < transactions.size(); i++) {
+            encode(transactions.get(i), batch, i * recordSize);
+        }
+        appendLock.lock();
+        try {
+            checkNotFailed();
+            int written = 0;
+            while (written < transactions.size()) {
+                Segment segment = writableSegment();
+                int count = Math.min(transactions.size() - written, segment.capacity - segment.count);
+                ByteBuffer slice = batch.slice(written * recordSize, count * recordSize);
+                long position = segment.offsetOf(segment.count);
+                while (slice.hasRemaining()) {
+                    position += segment.channel.write(slice, position);
+                }
+                for (int i = written; i < written + count; i++) {
+                    indexByHash.put(transactions.get(i).getTransactionHash(), writtenSize + i - written);
+                }
+                segment.count += count;
+                writtenSize += count;
+                written += count;
+            }
+            return writtenSize;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error appending to the ledger", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Forces every segment written since the last force, unless a writer that got here first
+     * already did
+     */
+    @Override
+    public void awaitDurable(long target) {
+        if (target <= size) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            checkNotFailed();
+            if (target <= size) {
+                return;
+            }
+            long upTo = writtenSize;
+            for (Segment segment : segments.tailMap(segments.floorKey(size)).values()) {
+                if (segment.firstIndex >= upTo) {
+                    break;
+                }
+                segment.channel.force(false);
+            }
+            size = upTo;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Error forcing the ledger; the segment store is stopped", e);
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("The segment store stopped after a failed force", failure);
+        }
+    }
+
+    @Override
+    public BlockchainTransaction tip() {
+        long last = size - 1;
+        return last < 0 ? null : read(last);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void forEachFrom(long index, Consumer<BlockchainTransaction> action) {
+        long end = size;
+        if (index >= end) {
+            return;
+        }
+        Long first = segments.floorKey(index);
+        for (Segment segment : segments.tailMap(first == null ? 0L : first).values()) {
+            int count = (int) Math.min(segment.count, end - segment.firstIndex);
+            for (int i = (int) Math.max(0, index - segment.firstIndex); i < count; i++) {
+                action.accept(decode(segment, i));
+            }
+            if (segment.firstIndex + count >= end) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isConfirmed(String transactionHash) {
+        Long index = indexByHash.get(transactionHash);
+        // Indexed when written; only forced records count
+        return index != null && index < size && "CONFIRMED".equals(read(index).getStatus());
+    }
+
+    @Override
+    public void saveCheckpoint(LedgerCheckpoint checkpoint) {
+        checkpointLock.lock();
+        try {
+            if (checkpoints.containsKey(checkpoint.getEntryCount())) {
+                return;
+            }
+            String line = checkpoint.getEntryCount() + " " + checkpoint.getTransactionHash() + " "
+                    + checkpoint.getCreatedAt() + " " + checkpoint.getSignature() + "\n";
+            ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                checkpointChannel.write(bytes);
+            }
+            checkpointChannel.force(false);
+            checkpoints.put(checkpoint.getEntryCount(), checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error saving ledger checkpoint", e);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @Override
+    public List<LedgerCheckpoint> checkpoints() {
+        return new ArrayList<>(checkpoints.values());
+    }
+
+    private void loadCheckpoints(Path path) throws IOException {
+        checkpointChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        byte[] content = Files.readAllBytes(path);
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        if (end < content.length) {
+            // Cut off, so the next checkpoint does not run into it
+            logger.warn("Discarding a torn ledger checkpoint at the end of {}", path);
+            checkpointChannel.truncate(end);
+            checkpointChannel.force(false);
+        }
+        for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(" ");
+            if (fields.length != 4) {
+                throw new IllegalStateException("Ledger checkpoint file " + path + " is damaged: " + line);
+            }
+            int entryCount = Integer.parseInt(fields[0]);
+            checkpoints.put(entryCount, new LedgerCheckpoint(entryCount, fields[1], LocalDateTime.parse(fields[2]), fields[3]));
+        }
+        checkpointChannel.position(end);
+    }
+
+    private BlockchainTransaction read(long index) {
+        Segment segment = segments.floorEntry(index).getValue();
+        return decode(segment, (int) (index - segment.firstIndex));
+    }
+
+    private Segment writableSegment() throws IOException {
+        Map.Entry<Long, Segment> last = segments.lastEntry();
+        if (last != null && last.getValue().count < last.getValue().capacity) {
+            return last.getValue();
+        }
+        Path path = Paths.get(directory, String.format("ledger-%020d%s", writtenSize, SEGMENT_SUFFIX));
+        Segment segment = Segment.create(path, writtenSize, recordSize, recordsPerSegment);
+        segments.put(segment.firstIndex, segment);
+        logger.info("Started ledger segment {}", path);
+        return segment;
+    }
+
+    /**
+     * Counts the intact records of a segment. Only the newest segment may end in a torn or stale
+     * tail, which is zeroed so it cannot be mistaken for data later.
+     */
+    private void recover(Segment segment, boolean last) throws IOException {
+        int count = 0;
+        while (count < segment.capacity && isIntact(segment, count)) {
+            BlockchainTransaction transaction = decode(segment, count);
+            indexByHash.put(transaction.getTransactionHash(), segment.firstIndex + count);
+            count++;
+        }
+        segment.count = count;
+        if (count == segment.capacity) {
+            return;
+        }
+        if (!last) {
+            throw new IllegalStateException("Ledger segment " + segment.path + " is damaged at record " + count);
+        }
+        int end = count;
+        while (end < segment.capacity && segment.buffer.getInt((int) segment.offsetOf(end)) != 0) {
+            end++;
+        }
+        if (end > count) {
+            logger.warn("Discarding {} incomplete ledger records after entry {}", end - count, segment.firstIndex + count);
+            ByteBuffer zeros = ByteBuffer.allocate((end - count) * segment.recordSize);
+            long position = segment.offsetOf(count);
+            while (zeros.hasRemaining()) {
+                position += segment.channel.write(zeros, position);
+            }
+            segment.channel.force(false);
+        }
+    }
+
+    private boolean isIntact(Segment segment, int record) {
+        int offset = (int) segment.offsetOf(record);
+        int length = segment.buffer.getInt(offset);
+        if (length < FIXED_BODY_SIZE || length > segment.recordSize - RECORD_HEADER_SIZE) {
+            return false;
+        }
+        crc.reset();
+        crc.update(segment.buffer.slice(offset + RECORD_HEADER_SIZE, length));
+        return (int) crc.getValue() == segment.buffer.getInt(offset + Integer.BYTES)
+                && segment.buffer.getLong(offset + RECORD_HEADER_SIZE) == segment.firstIndex + record + 1;
+    }
+
+    private void encode(BlockchainTransaction transaction, ByteBuffer target, int offset) {
+        if (transaction.getId() == null) {
+            transaction.setId(UUID.randomUUID());
+        }
+        ByteBuffer body = target.slice(offset + RECORD_HEADER_SIZE, recordSize - RECORD_HEADER_SIZE);
+        try {
+            body.putLong(transaction.getBlockNumber());
+            putInstant(body, transaction.getTimestamp());
+            putTime(body, transaction.getCreatedAt());
+            body.putLong(transaction.getId().getMostSignificantBits());
+            body.putLong(transaction.getId().getLeastSignificantBits());
+            putString(body, transaction.getTransactionType());
+            putString(body, transaction.getDetails());
+            putString(body, transaction.getTransactionHash());
+            putString(body, transaction.getDataHash());
+            putString(body, transaction.getPreviousHash());
+            putString(body, transaction.getStatus());
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Ledger entry " + transaction.getBlockNumber()
+                    + " does not fit in a " + recordSize + " byte record");
+        }
+        int length = body.position();
+        CRC32C checksum = new CRC32C();
+        checksum.update(body.flip());
+        target.putInt(offset, length);
+        target.putInt(offset + Integer.BYTES, (int) checksum.getValue());
+    }
+
+    private static BlockchainTransaction decode(Segment segment, int record) {
+        int offset = (int) segment.offsetOf(record);
+        // A view onto the mapping; fields are decoded from it without reading the record into a copy
+        ByteBuffer body = segment.buffer.slice(offset + RECORD_HEADER_SIZE, segment.buffer.getInt(offset));
+        BlockchainTransaction transaction = new BlockchainTransaction();
+        transaction.setBlockNumber(body.getLong());
+        transaction.setTimestamp(getInstant(body));
+        transaction.setCreatedAt(getTime(body));
+        transaction.setId(new UUID(body.getLong(), body.getLong()));
+        transaction.setTransactionType(getString(body));
+        transaction.setDetails(getString(body));
+        transaction.setTransactionHash(getString(body));
+        transaction.setDataHash(getString(body));
+        transaction.setPreviousHash(getString(body));
+        transaction.setStatus(getString(body));
+        return transaction;
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        buffer.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(time.getNano());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    // Same layout as putTime, so segments written before timestamps were instants read back unchanged
+    private static void putInstant(ByteBuffer buffer, Instant time) {
+        buffer.putLong(time.getEpochSecond());
+        buffer.putInt(time.getNano());
+    }
+
+    private static Instant getInstant(ByteBuffer buffer) {
+        return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xffff) {
+            throw new BufferOverflowException();
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final long firstIndex;
+        private final int recordSize;
+        private final int capacity;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Written only by the appending thread; readers bound themselves by the store's size
+        private volatile int count;
+
+        private Segment(Path path, long firstIndex, int recordSize, int capacity, FileChannel channel) throws IOException {
+            this.path = path;
+            this.firstIndex = firstIndex;
+            this.recordSize = recordSize;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + (long) recordSize * capacity);
+        }
+
+        /**
+         * Writes and forces the header and preallocation under a temporary name, then renames the
+         * file into place
+         */
+        static Segment create(Path path, long firstIndex, int recordSize, int capacity) throws IOException {
+            Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putInt(recordSize).putInt(capacity).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                // Preallocate, so the mapping covers the whole segment and free slots read as zero
+                channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) recordSize * capacity - 1);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            try (FileChannel parent = FileChannel.open(path.getParent(), StandardOpenOption.READ)) {
+                // Makes the rename durable
+                parent.force(true);
+            } catch (IOException e) {
+                logger.debug("Could not force ledger directory {}: {}", path.getParent(), e.getMessage());
+            }
+            return open(path);
+        }
+
+        /**
+         * @return null if the segment is torn: its header or preallocation was never completely written
+         */
+        static Segment open(Path path) throws IOException {
+            String name = path.getFileName().toString();
+            long firstIndex = Long.parseLong(name.substring("ledger-".length(), name.length() - SEGMENT_SUFFIX.length()));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            long magic = header.remaining() < HEADER_SIZE ? 0 : header.getLong();
+            if (magic != MAGIC) {
+                channel.close();
+                if (magic == 0) {
+                    return null;
+                }
+                throw new IllegalStateException(path + " is not a ledger segment");
+            }
+            int recordSize = header.getInt();
+            int capacity = header.getInt();
+            if (channel.size() < HEADER_SIZE + (long) recordSize * capacity) {
+                channel.close();
+                return null;
+            }
+            return new Segment(path, firstIndex, recordSize, capacity, channel);
+        }
+
+        long offsetOf(int record) {
+            return HEADER_SIZE + (long) record * recordSize;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.compliantpay.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+/**
+ * Asynchronous appender that hands events to its delegate through a bounded queue. Once the queue
+ * is full, events at or below {@code discardLevel} (DEBUG by default) are dropped instead of
+ * blocking the logging thread; more severe events still wait for space so none are lost.
+ *
+ * Caller data (class, method and line) needs a stack walk on the logging thread, so it is only
+ * captured for loggers listed in {@code callerDataLoggers}, by name prefix. Other events get an
+ * empty caller frame so encoders on the worker thread do not walk its stack either.
+ */
+public class LevelDiscardingAsyncAppender extends AsyncAppender {
+
+    private static final StackTraceElement[] NO_CALLER_DATA = new StackTraceElement[0];
+
+    private Level discardLevel = Level.DEBUG;
+    private final List<String> callerDataLoggers = new ArrayList<>();
+
+    public LevelDiscardingAsyncAppender() {
+        // Discard only once the queue is full, not when it is merely 80% used
+        setDiscardingThreshold(1);
+    }
+
+    public void setDiscardLevel(String level) {
+        this.discardLevel = Level.toLevel(level, Level.DEBUG);
+    }
+
+    public void setCallerDataLoggers(String loggers) {
+        callerDataLoggers.clear();
+        for (String logger : loggers.split(",")) {
+            if (!logger.isBlank()) {
+                callerDataLoggers.add(logger.trim());
+            }
+        }
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        return event.getLevel().toInt() <= discardLevel.toInt();
+    }
+
+    @Override
+    protected void preprocess(ILoggingEvent event) {
+        super.preprocess(event);
+        if (isIncludeCallerData() || !(event instanceof LoggingEvent loggingEvent)) {
+            return;
+        }
+        if (wantsCallerData(event.getLoggerName())) {
+            event.getCallerData();
+        } else {
+            loggingEvent.setCallerData(NO_CALLER_DATA);
+        }
+    }
+
+    private boolean wantsCallerData(String loggerName) {
+        for (String prefix : callerDataLoggers) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
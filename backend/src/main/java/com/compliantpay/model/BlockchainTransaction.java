@@ -1,6 +1,7 @@
 package com.compliantpay.model;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -30,8 +31,9 @@ public class BlockchainTransaction {
     @Column(name = "block_number")
     private Long blockNumber;
     
+    // An instant rather than a local time: it is hashed, so it must read back the same in any zone
     @Column(name = "timestamp", nullable = false)
-    private LocalDateTime timestamp;
+    private Instant timestamp;
     
     @Column(name = "status", nullable = false)
     private String status; // PENDING, CONFIRMED, FAILED
@@ -41,7 +43,7 @@ public class BlockchainTransaction {
     
     // Constructors
     public BlockchainTransaction() {
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = Instant.now();
         this.createdAt = LocalDateTime.now();
         this.status = "PENDING";
     }
@@ -78,8 +80,8 @@ public class BlockchainTransaction {
     public Long getBlockNumber() { return blockNumber; }
     public void setBlockNumber(Long blockNumber) { this.blockNumber = blockNumber; }
     
-    public LocalDateTime getTimestamp() { return timestamp; }
-    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
     
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
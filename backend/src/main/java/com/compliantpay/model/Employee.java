@@ -1,5 +1,6 @@
 package com.compliantpay.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
@@ -43,6 +44,11 @@ public class Employee {
     @Column(nullable = false)
     private String location;
     
+    // Code of the location in the jurisdiction registry, assigned at ingest
+    @JsonIgnore
+    @Column(name = "jurisdiction_code")
+    private Integer jurisdictionCode;
+    
     @Email(message = "Email should be valid")
     @Column(unique = true)
     private String email;
@@ -104,6 +110,9 @@ public class Employee {
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
     
+    public Integer getJurisdictionCode() { return jurisdictionCode; }
+    public void setJurisdictionCode(Integer jurisdictionCode) { this.jurisdictionCode = jurisdictionCode; }
+    
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
     
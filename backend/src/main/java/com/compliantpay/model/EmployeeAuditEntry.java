@@ -0,0 +1,24 @@
+package com.compliantpay.model;
+
+/**
+ * Employee change waiting to be appended to the ledger. Holds plain strings captured when the
+ * change happened, so it stays valid after the entity is modified again.
+ */
+public class EmployeeAuditEntry {
+
+    private final String transactionType;
+    private final String employeeId;
+    private final String details;
+
+    public EmployeeAuditEntry(String transactionType, String employeeId, String details) {
+        this.transactionType = transactionType;
+        this.employeeId = employeeId;
+        this.details = details;
+    }
+
+    public String getTransactionType() { return transactionType; }
+
+    public String getEmployeeId() { return employeeId; }
+
+    public String getDetails() { return details; }
+}
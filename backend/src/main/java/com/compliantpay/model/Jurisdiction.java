@@ -0,0 +1,43 @@
+package com.compliantpay.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Interned jurisdiction name. The generated id doubles as the compact code
+ * stored on employees and used to index in-memory rule tables.
+ */
+@Entity
+@Table(name = "jurisdictions")
+public class Jurisdiction {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(name = "name", unique = true, nullable = false)
+    private String name;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public Jurisdiction() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public Jurisdiction(String name) {
+        this();
+        this.name = name;
+    }
+    
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,30 @@
+package com.compliantpay.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Signed statement that the first {@code entryCount} ledger entries verified and that the last of
+ * them had {@code transactionHash}. Verification resumes after the latest valid checkpoint.
+ */
+public class LedgerCheckpoint {
+
+    private final int entryCount;
+    private final String transactionHash;
+    private final LocalDateTime createdAt;
+    private final String signature;
+
+    public LedgerCheckpoint(int entryCount, String transactionHash, LocalDateTime createdAt, String signature) {
+        this.entryCount = entryCount;
+        this.transactionHash = transactionHash;
+        this.createdAt = createdAt;
+        this.signature = signature;
+    }
+
+    public int getEntryCount() { return entryCount; }
+
+    public String getTransactionHash() { return transactionHash; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public String getSignature() { return signature; }
+}
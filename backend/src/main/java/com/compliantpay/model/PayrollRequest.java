@@ -5,6 +5,7 @@ import java.util.UUID;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 public class PayrollRequest {
     
@@ -17,6 +18,13 @@ public class PayrollRequest {
     private Boolean includeBenefits = true;
     private Boolean processPayments = false;
     
+    // Reuse the last certified run's results for employees unchanged since then
+    private Boolean deltaMode = false;
+    
+    // Client-chosen key; resubmitting with the same key returns the original run
+    @Size(max = 100, message = "Idempotency key must be at most 100 characters")
+    private String idempotencyKey;
+    
     // Getters and Setters
     public String getPayPeriod() { return payPeriod; }
     public void setPayPeriod(String payPeriod) { this.payPeriod = payPeriod; }
@@ -29,4 +37,10 @@ public class PayrollRequest {
     
     public Boolean getProcessPayments() { return processPayments; }
     public void setProcessPayments(Boolean processPayments) { this.processPayments = processPayments; }
+    
+    public Boolean getDeltaMode() { return deltaMode; }
+    public void setDeltaMode(Boolean deltaMode) { this.deltaMode = deltaMode; }
+    
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 }
\ No newline at end of file
@@ -9,7 +9,8 @@ import java.util.UUID;
 @Entity
 @Table(name = "payroll_runs", indexes = {
     @Index(name = "idx_payrollrun_status", columnList = "status"),
-    @Index(name = "idx_payrollrun_run_date", columnList = "run_date")
+    @Index(name = "idx_payrollrun_run_date", columnList = "run_date"),
+    @Index(name = "uk_payrollrun_idempotency", columnList = "idempotency_owner, idempotency_key", unique = true)
 })
 public class PayrollRun {
     
@@ -36,9 +37,55 @@ public class PayrollRun {
     @Column(name = "blockchain_tx_hash")
     private String blockchainTxHash;
     
+    // Data hash anchored through blockchain-service; null when anchoring was disabled at certification
+    @Column(name = "anchor_digest")
+    private String anchorDigest;
+    
+    @Column(name = "anchor_receipt_id", length = 100)
+    private String anchorReceiptId;
+    
+    // Transaction hash and Merkle inclusion proof of the anchored data hash, known once it was sent
+    @Column(name = "anchor_tx_hash")
+    private String anchorTxHash;
+    
+    @Column(name = "anchor_merkle_root")
+    private String anchorMerkleRoot;
+    
+    @Column(name = "anchor_leaf_index")
+    private Integer anchorLeafIndex;
+    
+    @Column(name = "anchor_merkle_proof", columnDefinition = "TEXT")
+    private String anchorMerkleProof;
+    
+    // Set once the anchoring transaction is confirmed; the anchor is reconciled until then
+    @Column(name = "anchor_block_number")
+    private Long anchorBlockNumber;
+    
     @Column(name = "compliance_rules_hash")
     private String complianceRulesHash;
     
+    // Tax rule version pinned when the run was created
+    @Column(name = "rules_version")
+    private Long rulesVersion;
+    
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+    
+    // User the idempotency key belongs to; keys of different users never collide
+    @Column(name = "idempotency_owner", length = 100)
+    private String idempotencyOwner;
+    
+    // SHA-256 of the request the key was first used with, so a reused key with other parameters is refused
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+    
+    // Instance aggregating a distributed run and when its hold on the COMPLETED run runs out
+    @Column(name = "aggregating_owner", length = 100)
+    private String aggregatingOwner;
+    
+    @Column(name = "aggregation_expires_at")
+    private LocalDateTime aggregationExpiresAt;
+    
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
@@ -85,9 +132,48 @@ public class PayrollRun {
     public String getBlockchainTxHash() { return blockchainTxHash; }
     public void setBlockchainTxHash(String blockchainTxHash) { this.blockchainTxHash = blockchainTxHash; }
     
+    public String getAnchorDigest() { return anchorDigest; }
+    public void setAnchorDigest(String anchorDigest) { this.anchorDigest = anchorDigest; }
+    
+    public String getAnchorReceiptId() { return anchorReceiptId; }
+    public void setAnchorReceiptId(String anchorReceiptId) { this.anchorReceiptId = anchorReceiptId; }
+    
+    public String getAnchorTxHash() { return anchorTxHash; }
+    public void setAnchorTxHash(String anchorTxHash) { this.anchorTxHash = anchorTxHash; }
+    
+    public String getAnchorMerkleRoot() { return anchorMerkleRoot; }
+    public void setAnchorMerkleRoot(String anchorMerkleRoot) { this.anchorMerkleRoot = anchorMerkleRoot; }
+    
+    public Integer getAnchorLeafIndex() { return anchorLeafIndex; }
+    public void setAnchorLeafIndex(Integer anchorLeafIndex) { this.anchorLeafIndex = anchorLeafIndex; }
+    
+    public String getAnchorMerkleProof() { return anchorMerkleProof; }
+    public void setAnchorMerkleProof(String anchorMerkleProof) { this.anchorMerkleProof = anchorMerkleProof; }
+    
+    public Long getAnchorBlockNumber() { return anchorBlockNumber; }
+    public void setAnchorBlockNumber(Long anchorBlockNumber) { this.anchorBlockNumber = anchorBlockNumber; }
+    
     public String getComplianceRulesHash() { return complianceRulesHash; }
     public void setComplianceRulesHash(String complianceRulesHash) { this.complianceRulesHash = complianceRulesHash; }
     
+    public Long getRulesVersion() { return rulesVersion; }
+    public void setRulesVersion(Long rulesVersion) { this.rulesVersion = rulesVersion; }
+    
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+    
+    public String getIdempotencyOwner() { return idempotencyOwner; }
+    public void setIdempotencyOwner(String idempotencyOwner) { this.idempotencyOwner = idempotencyOwner; }
+    
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    
+    public String getAggregatingOwner() { return aggregatingOwner; }
+    public void setAggregatingOwner(String aggregatingOwner) { this.aggregatingOwner = aggregatingOwner; }
+    
+    public LocalDateTime getAggregationExpiresAt() { return aggregationExpiresAt; }
+    public void setAggregationExpiresAt(LocalDateTime aggregationExpiresAt) { this.aggregationExpiresAt = aggregationExpiresAt; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -0,0 +1,134 @@
+package com.compliantpay.model;
+
+import jakarta.persistence.*;
+import jakarta.persistence.Index;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A slice of a distributed payroll run waiting to be computed. Any backend instance may claim a
+ * pending chunk, or one whose lease has run out, and completes it in the same transaction that
+ * writes its payslip lines.
+ */
+@Entity
+@Table(name = "payroll_chunks", indexes = {
+    @Index(name = "uk_payroll_chunk_run_seq", columnList = "run_id, seq", unique = true),
+    @Index(name = "idx_payroll_chunk_status", columnList = "status, lease_expires_at")
+})
+public class PayrollWorkChunk {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+    
+    @Column(name = "seq", nullable = false)
+    private Integer sequence;
+    
+    // Comma-separated employee UUIDs
+    @Column(name = "employee_ids", nullable = false, columnDefinition = "TEXT")
+    private String employeeIds;
+    
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private ChunkStatus status;
+    
+    // Instance holding the claim
+    @Column(name = "owner", length = 100)
+    private String owner;
+    
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+    
+    // Claims so far, including ones lost to a crash
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+    
+    // Filled in on completion for the run's totals
+    @Column(name = "employee_count")
+    private Integer employeeCount;
+    
+    @Column(name = "salary_cents")
+    private Long salaryCents;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    public enum ChunkStatus {
+        PENDING, CLAIMED, DONE, FAILED
+    }
+    
+    public PayrollWorkChunk() {
+        this.createdAt = LocalDateTime.now();
+        this.status = ChunkStatus.PENDING;
+        this.attempts = 0;
+    }
+    
+    public PayrollWorkChunk(UUID runId, int sequence, List<UUID> employeeIds) {
+        this();
+        this.runId = runId;
+        this.sequence = sequence;
+        StringBuilder ids = new StringBuilder(employeeIds.size() * 37);
+        for (UUID employeeId : employeeIds) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(employeeId);
+        }
+        this.employeeIds = ids.toString();
+    }
+    
+    public List<UUID> employeeIdList() {
+        List<UUID> ids = new ArrayList<>();
+        for (String id : employeeIds.split(",")) {
+            if (!id.isEmpty()) {
+                ids.add(UUID.fromString(id));
+            }
+        }
+        return ids;
+    }
+    
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    
+    public UUID getRunId() { return runId; }
+    public void setRunId(UUID runId) { this.runId = runId; }
+    
+    public Integer getSequence() { return sequence; }
+    public void setSequence(Integer sequence) { this.sequence = sequence; }
+    
+    public String getEmployeeIds() { return employeeIds; }
+    public void setEmployeeIds(String employeeIds) { this.employeeIds = employeeIds; }
+    
+    public ChunkStatus getStatus() { return status; }
+    public void setStatus(ChunkStatus status) { this.status = status; }
+    
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+    
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+    
+    public Integer getEmployeeCount() { return employeeCount; }
+    public void setEmployeeCount(Integer employeeCount) { this.employeeCount = employeeCount; }
+    
+    public Long getSalaryCents() { return salaryCents; }
+    public void setSalaryCents(Long salaryCents) { this.salaryCents = salaryCents; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -0,0 +1,94 @@
+package com.compliantpay.model;
+
+import jakarta.persistence.*;
+import jakarta.persistence.Index;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Per-employee result of a payroll run. Rows are bulk-written by the payroll pipeline
+ * and only read through JPA; ids come from payslip_line_seq in blocks of 50 (pooled-lo).
+ */
+@Entity
+@Table(name = "payslip_lines", indexes = {
+    @Index(name = "idx_payslip_run", columnList = "run_id"),
+    @Index(name = "idx_payslip_employee", columnList = "employee_id")
+})
+public class PayslipLine {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payslip_line_seq")
+    @SequenceGenerator(name = "payslip_line_seq", sequenceName = "payslip_line_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+    
+    @Column(name = "employee_id", nullable = false)
+    private UUID employeeId;
+    
+    @Column(name = "gross_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal grossAmount;
+    
+    @Column(name = "tax_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal taxAmount;
+    
+    @Column(name = "net_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal netAmount;
+    
+    // JSON object of monthly tax per rule name
+    @Column(name = "tax_breakdown", columnDefinition = "TEXT")
+    private String taxBreakdown;
+    
+    // Hex SHA-256 leaf of this line in the run's Merkle tree
+    @Column(name = "leaf_hash", length = 64)
+    private String leafHash;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public PayslipLine() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public PayslipLine(UUID runId, UUID employeeId, BigDecimal grossAmount,
+                       BigDecimal taxAmount, String taxBreakdown) {
+        this();
+        this.runId = runId;
+        this.employeeId = employeeId;
+        this.grossAmount = grossAmount;
+        this.taxAmount = taxAmount;
+        this.netAmount = grossAmount.subtract(taxAmount);
+        this.taxBreakdown = taxBreakdown;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public UUID getRunId() { return runId; }
+    public void setRunId(UUID runId) { this.runId = runId; }
+    
+    public UUID getEmployeeId() { return employeeId; }
+    public void setEmployeeId(UUID employeeId) { this.employeeId = employeeId; }
+    
+    public BigDecimal getGrossAmount() { return grossAmount; }
+    public void setGrossAmount(BigDecimal grossAmount) { this.grossAmount = grossAmount; }
+    
+    public BigDecimal getTaxAmount() { return taxAmount; }
+    public void setTaxAmount(BigDecimal taxAmount) { this.taxAmount = taxAmount; }
+    
+    public BigDecimal getNetAmount() { return netAmount; }
+    public void setNetAmount(BigDecimal netAmount) { this.netAmount = netAmount; }
+    
+    public String getTaxBreakdown() { return taxBreakdown; }
+    public void setTaxBreakdown(String taxBreakdown) { this.taxBreakdown = taxBreakdown; }
+    
+    public String getLeafHash() { return leafHash; }
+    public void setLeafHash(String leafHash) { this.leafHash = leafHash; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
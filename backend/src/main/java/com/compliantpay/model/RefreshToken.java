@@ -0,0 +1,83 @@
+package com.compliantpay.model;
+
+import jakarta.persistence.*;
+import jakarta.persistence.Index;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Opaque refresh token, stored only as an HMAC of its value. Each refresh retires the presented
+ * token and issues a successor in the same family; presenting a retired token again revokes the
+ * whole family.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "uk_refresh_token_hash", columnList = "token_hash", unique = true),
+    @Index(name = "idx_refresh_token_family", columnList = "family_id")
+})
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+    
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+    
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // Set once the token has been exchanged for its successor
+    @Column(name = "used", nullable = false)
+    private boolean used;
+    
+    // Set for every token of a family that was logged out or caught being replayed
+    @Column(name = "revoked", nullable = false)
+    private boolean revoked;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    public RefreshToken() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public RefreshToken(String tokenHash, String username, UUID familyId, LocalDateTime expiresAt) {
+        this();
+        this.tokenHash = tokenHash;
+        this.username = username;
+        this.familyId = familyId;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    
+    public UUID getFamilyId() { return familyId; }
+    public void setFamilyId(UUID familyId) { this.familyId = familyId; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    
+    public boolean isUsed() { return used; }
+    public void setUsed(boolean used) { this.used = used; }
+    
+    public boolean isRevoked() { return revoked; }
+    public void setRevoked(boolean revoked) { this.revoked = revoked; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,36 @@
+package com.compliantpay.model;
+
+/**
+ * Immutable compiled set of tax rules at one rule version, indexed by jurisdiction code.
+ * Payroll runs hold on to the snapshot they started with, so a rule change mid-run does not
+ * mix two versions in one run.
+ */
+public final class TaxRuleSnapshot {
+
+    private static final TaxRule[] NO_RULES = new TaxRule[0];
+
+    private final long version;
+    private final String rulesHash;
+    private final TaxRule[][] rulesByJurisdiction;
+
+    public TaxRuleSnapshot(long version, String rulesHash, TaxRule[][] rulesByJurisdiction) {
+        this.version = version;
+        this.rulesHash = rulesHash;
+        this.rulesByJurisdiction = rulesByJurisdiction;
+    }
+
+    public long getVersion() { return version; }
+
+    /**
+     * Content hash of the rule tables, stable across restarts
+     */
+    public String getRulesHash() { return rulesHash; }
+
+    public TaxRule[] rulesFor(int jurisdictionCode) {
+        if (jurisdictionCode < 0 || jurisdictionCode >= rulesByJurisdiction.length
+                || rulesByJurisdiction[jurisdictionCode] == null) {
+            return NO_RULES;
+        }
+        return rulesByJurisdiction[jurisdictionCode];
+    }
+}
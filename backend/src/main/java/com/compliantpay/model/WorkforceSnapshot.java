@@ -0,0 +1,165 @@
+package com.compliantpay.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.compliantpay.util.CodeDictionary;
+
+/**
+ * Read-only columnar view of the active workforce.
+ * Row i of every column describes the same employee; string attributes are dictionary-encoded,
+ * with locations carrying their jurisdiction registry codes.
+ */
+public final class WorkforceSnapshot {
+
+    private final long version;
+    private final int size;
+    private final UUID[] employeeIds;
+    private final long[] salaryCents;
+    private final int[] locationCodes;
+    private final int[] departmentCodes;
+    private final int[] benefitPlanCodes;
+    private final Map<UUID, Integer> rowIndex;
+    private final CodeDictionary departments;
+    private final CodeDictionary benefitPlans;
+
+    public WorkforceSnapshot(long version, int size, UUID[] employeeIds, long[] salaryCents,
+                             int[] locationCodes, int[] departmentCodes, int[] benefitPlanCodes,
+                             Map<UUID, Integer> rowIndex, CodeDictionary departments,
+                             CodeDictionary benefitPlans) {
+        this.version = version;
+        this.size = size;
+        this.employeeIds = employeeIds;
+        this.salaryCents = salaryCents;
+        this.locationCodes = locationCodes;
+        this.departmentCodes = departmentCodes;
+        this.benefitPlanCodes = benefitPlanCodes;
+        this.rowIndex = rowIndex;
+        this.departments = departments;
+        this.benefitPlans = benefitPlans;
+    }
+
+    public long getVersion() { return version; }
+
+    public int size() { return size; }
+
+    public UUID employeeId(int row) { return employeeIds[row]; }
+
+    public long salaryCents(int row) { return salaryCents[row]; }
+
+    public int locationCode(int row) { return locationCodes[row]; }
+
+    public int departmentCode(int row) { return departmentCodes[row]; }
+
+    public int benefitPlanCode(int row) { return benefitPlanCodes[row]; }
+
+    /**
+     * Row of the given employee, or -1 when the employee is not active in this snapshot
+     */
+    public int rowOf(UUID employeeId) {
+        Integer row = rowIndex.get(employeeId);
+        return row != null ? row : -1;
+    }
+
+    public long totalSalaryCents() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += salaryCents[i];
+        }
+        return total;
+    }
+
+    public int[] headcountByDepartment() {
+        int[] counts = new int[departments.size()];
+        for (int i = 0; i < size; i++) {
+            counts[departmentCodes[i]]++;
+        }
+        return counts;
+    }
+
+    public long[] salaryCentsByLocation() {
+        int limit = 0;
+        for (int i = 0; i < size; i++) {
+            limit = Math.max(limit, locationCodes[i] + 1);
+        }
+        long[] totals = new long[limit];
+        for (int i = 0; i < size; i++) {
+            if (locationCodes[i] >= 0) {
+                totals[locationCodes[i]] += salaryCents[i];
+            }
+        }
+        return totals;
+    }
+
+    public String department(int code) { return departments.decode(code); }
+
+    public String benefitPlan(int code) { return benefitPlans.decode(code); }
+
+    /**
+     * Returns a new snapshot with the employee's row inserted or replaced; this snapshot is left untouched
+     */
+    public WorkforceSnapshot withEmployee(UUID employeeId, long salary, int locationCode,
+                                          String department, String benefitPlan) {
+        Integer existing = rowIndex.get(employeeId);
+        int row = existing != null ? existing : size;
+        int newSize = existing != null ? size : size + 1;
+        int capacity = Math.max(newSize, employeeIds.length);
+
+        UUID[] ids = Arrays.copyOf(employeeIds, capacity);
+        long[] salaries = Arrays.copyOf(salaryCents, capacity);
+        int[] locs = Arrays.copyOf(locationCodes, capacity);
+        int[] depts = Arrays.copyOf(departmentCodes, capacity);
+        int[] plans = Arrays.copyOf(benefitPlanCodes, capacity);
+        Map<UUID, Integer> index = rowIndex;
+        if (existing == null) {
+            index = new HashMap<>(rowIndex);
+            index.put(employeeId, row);
+        }
+
+        ids[row] = employeeId;
+        salaries[row] = salary;
+        locs[row] = locationCode;
+        depts[row] = departments.intern(department);
+        plans[row] = benefitPlans.intern(benefitPlan);
+        return new WorkforceSnapshot(version + 1, newSize, ids, salaries, locs, depts, plans,
+                index, departments, benefitPlans);
+    }
+
+    /**
+     * Returns a new snapshot without the employee; the last row is moved into the freed slot
+     */
+    public WorkforceSnapshot withoutEmployee(UUID employeeId) {
+        Integer existing = rowIndex.get(employeeId);
+        if (existing == null) {
+            return this;
+        }
+        int row = existing;
+        int last = size - 1;
+
+        UUID[] ids = Arrays.copyOf(employeeIds, last);
+        long[] salaries = Arrays.copyOf(salaryCents, last);
+        int[] locs = Arrays.copyOf(locationCodes, last);
+        int[] depts = Arrays.copyOf(departmentCodes, last);
+        int[] plans = Arrays.copyOf(benefitPlanCodes, last);
+        Map<UUID, Integer> index = new HashMap<>(rowIndex);
+        index.remove(employeeId);
+
+        if (row != last) {
+            ids[row] = employeeIds[last];
+            salaries[row] = salaryCents[last];
+            locs[row] = locationCodes[last];
+            depts[row] = departmentCodes[last];
+            plans[row] = benefitPlanCodes[last];
+            index.put(employeeIds[last], row);
+        }
+        return new WorkforceSnapshot(version + 1, last, ids, salaries, locs, depts, plans,
+                index, departments, benefitPlans);
+    }
+
+    public static WorkforceSnapshot empty(CodeDictionary departments, CodeDictionary benefitPlans) {
+        return new WorkforceSnapshot(0, 0, new UUID[0], new long[0], new int[0], new int[0], new int[0],
+                Map.of(), departments, benefitPlans);
+    }
+}
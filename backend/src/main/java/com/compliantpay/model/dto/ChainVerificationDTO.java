@@ -0,0 +1,41 @@
+package com.compliantpay.model.dto;
+
+public class ChainVerificationDTO {
+    private boolean valid;
+    private int totalEntries;
+    // Entries before this index were covered by a checkpoint and not re-verified
+    private int verifiedFrom;
+    private int entriesVerified;
+    private int segments;
+    private Integer firstInvalidIndex;
+    private String message;
+    private long durationMs;
+
+    // Constructors
+    public ChainVerificationDTO() {}
+
+    // Getters and Setters
+    public boolean isValid() { return valid; }
+    public void setValid(boolean valid) { this.valid = valid; }
+
+    public int getTotalEntries() { return totalEntries; }
+    public void setTotalEntries(int totalEntries) { this.totalEntries = totalEntries; }
+
+    public int getVerifiedFrom() { return verifiedFrom; }
+    public void setVerifiedFrom(int verifiedFrom) { this.verifiedFrom = verifiedFrom; }
+
+    public int getEntriesVerified() { return entriesVerified; }
+    public void setEntriesVerified(int entriesVerified) { this.entriesVerified = entriesVerified; }
+
+    public int getSegments() { return segments; }
+    public void setSegments(int segments) { this.segments = segments; }
+
+    public Integer getFirstInvalidIndex() { return firstInvalidIndex; }
+    public void setFirstInvalidIndex(Integer firstInvalidIndex) { this.firstInvalidIndex = firstInvalidIndex; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+}
@@ -0,0 +1,114 @@
+package com.compliantpay.payroll;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.client.BlockchainAnchorClient;
+import com.compliantpay.client.BlockchainAnchorClient.AnchorReceipt;
+import com.compliantpay.model.PayrollRun;
+import com.compliantpay.repository.PayrollRunRepository;
+
+/**
+ * Completes the remote anchors of certified runs. Certification only waits until the anchor is
+ * sent, and keeps the run certified when blockchain-service is down, so each pass long-polls the
+ * receipts of runs whose anchor is not confirmed yet and stores the transaction hash, Merkle proof
+ * and block number. Runs that never got a receipt, whose anchor failed, or whose receipt
+ * blockchain-service no longer knows are anchored again.
+ *
+ * The idempotency id is derived from the run id, so instances reconciling the same run share one
+ * receipt.
+ */
+@Component
+public class AnchorReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnchorReconciler.class);
+
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+
+    @Autowired
+    private BlockchainAnchorClient anchorClient;
+
+    @Value("${app.blockchain.anchor.reconcile.batch-size:100}")
+    private int batchSize;
+
+    // How long one receipt lookup may be held by blockchain-service until the anchor is confirmed
+    @Value("${app.blockchain.anchor.reconcile.wait-ms:20000}")
+    private long waitMs;
+
+    // Passes run off the scheduler thread; a pass is skipped while the previous one is still waiting
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${app.blockchain.anchor.reconcile.interval-ms:30000}")
+    public void reconcile() {
+        if (!anchorClient.isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        List<CompletableFuture<Void>> updates = new ArrayList<>();
+        try {
+            for (PayrollRun run : payrollRunRepository.findUnconfirmedAnchors(PayrollRun.PayrollStatus.CERTIFIED,
+                    PageRequest.of(0, batchSize))) {
+                updates.add(reconcile(run));
+            }
+        } finally {
+            CompletableFuture.allOf(updates.toArray(new CompletableFuture[0]))
+                    .whenComplete((ignored, error) -> running.set(false));
+        }
+    }
+
+    /**
+     * Anchors the run's data hash under the run's idempotency id
+     */
+    CompletableFuture<AnchorReceipt> anchor(PayrollRun run) {
+        return anchorClient.anchor(run.getAnchorDigest(), "payroll:" + run.getId(), "payroll:" + run.getId());
+    }
+
+    /**
+     * Copies what blockchain-service knows about the run's anchor onto the run
+     */
+    static void record(PayrollRun run, AnchorReceipt receipt) {
+        run.setAnchorReceiptId(receipt.getReceiptId());
+        run.setAnchorTxHash(receipt.getTxHash());
+        run.setAnchorMerkleRoot(receipt.getMerkleRoot());
+        run.setAnchorLeafIndex(receipt.getLeafIndex());
+        run.setAnchorMerkleProof(receipt.getMerkleProof());
+        run.setAnchorBlockNumber(receipt.isConfirmed() ? receipt.getBlockNumber() : null);
+    }
+
+    private CompletableFuture<Void> reconcile(PayrollRun run) {
+        CompletableFuture<AnchorReceipt> receipt = run.getAnchorReceiptId() == null
+                ? anchor(run)
+                : anchorClient.receipt(run.getAnchorReceiptId(), waitMs).thenCompose(latest -> {
+                    if (latest == null || latest.isFailed()) {
+                        logger.info("Anchor of payroll run {} {}, anchoring again", run.getId(),
+                                latest == null ? "is no longer known" : "failed: " + latest.getError());
+                        return anchor(run);
+                    }
+                    return CompletableFuture.completedFuture(latest);
+                });
+        return receipt.handle((latest, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                logger.warn("Anchor of payroll run {} could not be reconciled: {}", run.getId(), cause.getMessage());
+                return null;
+            }
+            record(run, latest);
+            payrollRunRepository.save(run);
+            if (latest.isConfirmed()) {
+                logger.info("Anchor of payroll run {} confirmed in block {}", run.getId(), latest.getBlockNumber());
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,330 @@
+package com.compliantpay.payroll;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.compliantpay.model.PayrollRun;
+import com.compliantpay.model.PayrollWorkChunk;
+import com.compliantpay.repository.PayrollRunRepository;
+import com.compliantpay.repository.PayrollWorkChunkRepository;
+import com.compliantpay.repository.PayslipLineRepository;
+import com.compliantpay.util.HashUtil;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Spreads payroll runs over all backend instances. A run is split into payroll_chunks rows; every
+ * instance polls for claimable chunks with {@code FOR UPDATE SKIP LOCKED}, so instances never wait
+ * on each other's rows. A claimed chunk carries a lease and is completed in the same transaction
+ * that writes its payslip lines, so an instance that dies mid-chunk leaves nothing behind and the
+ * chunk is claimed again once the lease runs out.
+ *
+ * Whoever completes the last chunk takes the run's aggregation lease, aggregates the totals,
+ * rebuilds the Merkle root from the stored leaf hashes and certifies the run; if it dies meanwhile,
+ * another instance takes the expired lease over. The instance that accepted the request waits for
+ * the run to be certified or failed.
+ */
+@Component
+public class DistributedPayrollRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedPayrollRunner.class);
+
+    private static final String STATUS_SQL = "SELECT status FROM payroll_runs WHERE id = ?";
+
+    @Autowired
+    private PayrollWorkChunkRepository chunkRepository;
+
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+
+    @Autowired
+    private PayslipLineRepository payslipLineRepository;
+
+    @Autowired
+    private PayrollPipeline payrollPipeline;
+
+    @Autowired
+    private PayrollCertifier payrollCertifier;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    @Qualifier("payrollExecutor")
+    private TaskExecutor payrollExecutor;
+
+    @Value("${app.payroll.distributed.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.payroll.pipeline.chunk-size:500}")
+    private int chunkSize;
+
+    // Chunks this instance works on at the same time
+    @Value("${app.payroll.distributed.workers:2}")
+    private int workers;
+
+    @Value("${app.payroll.distributed.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.payroll.distributed.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.payroll.distributed.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${app.payroll.distributed.run-timeout-seconds:600}")
+    private long runTimeoutSeconds;
+
+    private String instanceId;
+    private Semaphore workerSlots;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        instanceId = host + ":" + UUID.randomUUID().toString().substring(0, 8);
+        workerSlots = new Semaphore(workers);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Splits the run into chunks, works on them alongside the other instances and waits until the
+     * run has been certified or has failed.
+     *
+     * @return the run as stored once it has left PROCESSING
+     */
+    public PayrollRun run(PayrollRun run, List<UUID> employeeIds) {
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(employeeIds));
+        List<PayrollWorkChunk> chunks = new ArrayList<>();
+        for (int from = 0, sequence = 0; from < ids.size(); from += chunkSize, sequence++) {
+            chunks.add(new PayrollWorkChunk(run.getId(), sequence,
+                    ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        transactionTemplate.executeWithoutResult(status -> chunkRepository.saveAll(chunks));
+        logger.info("Payroll run {} split into {} chunks for distributed processing", run.getId(), chunks.size());
+        startWorkers();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(runTimeoutSeconds);
+        try {
+            while (true) {
+                String status = jdbcTemplate.queryForObject(STATUS_SQL, String.class, run.getId());
+                if (PayrollRun.PayrollStatus.CERTIFIED.name().equals(status)
+                        || PayrollRun.PayrollStatus.FAILED.name().equals(status)) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    // Also fails a run stuck in aggregation, so its idempotency key is released
+                    payrollRunRepository.failFrom(run.getId(),
+                            EnumSet.of(PayrollRun.PayrollStatus.PROCESSING, PayrollRun.PayrollStatus.COMPLETED),
+                            PayrollRun.PayrollStatus.FAILED);
+                    throw new RuntimeException("Payroll run " + run.getId() + " did not finish within " + runTimeoutSeconds + " seconds");
+                }
+                Thread.sleep(pollIntervalMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for payroll run " + run.getId(), e);
+        }
+        return reload(run.getId());
+    }
+
+    /**
+     * Picks up chunks of runs started on any instance, and aggregations whose instance went away
+     */
+    @Scheduled(fixedDelayString = "${app.payroll.distributed.poll-interval-ms:500}")
+    public void poll() {
+        if (enabled) {
+            startWorkers();
+            takeOverStaleAggregations();
+        }
+    }
+
+    private void takeOverStaleAggregations() {
+        for (UUID runId : payrollRunRepository.findStaleAggregations(PayrollRun.PayrollStatus.COMPLETED, LocalDateTime.now())) {
+            try {
+                payrollExecutor.execute(() -> finishIfLast(runId));
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void startWorkers() {
+        while (workerSlots.tryAcquire()) {
+            try {
+                payrollExecutor.execute(() -> {
+                    try {
+                        while (processNext()) {
+                            // keep claiming until nothing is left
+                        }
+                    } catch (RuntimeException e) {
+                        logger.error("Payroll chunk worker stopped", e);
+                    } finally {
+                        workerSlots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                workerSlots.release();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims and processes one chunk
+     *
+     * @return false when there was nothing to claim
+     */
+    private boolean processNext() {
+        PayrollWorkChunk chunk = transactionTemplate.execute(status -> claim());
+        if (chunk == null) {
+            return false;
+        }
+        if (chunk.getStatus() == PayrollWorkChunk.ChunkStatus.FAILED) {
+            return true;
+        }
+        UUID runId = chunk.getRunId();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                PayrollRun run = payrollRunRepository.findById(runId)
+                        .orElseThrow(() -> new IllegalStateException("Payroll run " + runId + " not found"));
+                PayrollPipeline.ChunkResult result = payrollPipeline.computeChunk(run, chunk.getSequence(), chunk.employeeIdList());
+                if (chunkRepository.complete(chunk.getId(), instanceId, result.getEmployeeCount(), result.getSalaryCents(),
+                        LocalDateTime.now(), PayrollWorkChunk.ChunkStatus.CLAIMED, PayrollWorkChunk.ChunkStatus.DONE) == 0) {
+                    // Rolls back the payslip lines; the instance now holding the chunk writes them
+                    throw new IllegalStateException("Lease on chunk " + chunk.getSequence() + " of run " + runId + " was lost");
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Chunk {} of payroll run {} failed on attempt {}: {}",
+                    chunk.getSequence(), runId, chunk.getAttempts(), e.getMessage());
+            chunkRepository.release(chunk.getId(), instanceId,
+                    PayrollWorkChunk.ChunkStatus.CLAIMED, PayrollWorkChunk.ChunkStatus.PENDING);
+            return true;
+        }
+        finishIfLast(runId);
+        return true;
+    }
+
+    /**
+     * Locks the next claimable chunk and takes it under a lease. A chunk that has used up its
+     * attempts fails together with its run.
+     */
+    private PayrollWorkChunk claim() {
+        LocalDateTime now = LocalDateTime.now();
+        PayrollWorkChunk chunk = chunkRepository.lockNextClaimable(now).orElse(null);
+        if (chunk == null) {
+            return null;
+        }
+        if (chunk.getAttempts() >= maxAttempts) {
+            logger.error("Chunk {} of payroll run {} failed {} times; failing the run",
+                    chunk.getSequence(), chunk.getRunId(), chunk.getAttempts());
+            chunk.setStatus(PayrollWorkChunk.ChunkStatus.FAILED);
+            chunk.setOwner(null);
+            payrollRunRepository.fail(chunk.getRunId(), PayrollRun.PayrollStatus.PROCESSING, PayrollRun.PayrollStatus.FAILED);
+            return chunk;
+        }
+        chunk.setStatus(PayrollWorkChunk.ChunkStatus.CLAIMED);
+        chunk.setOwner(instanceId);
+        chunk.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+        chunk.setAttempts(chunk.getAttempts() + 1);
+        return chunk;
+    }
+
+    /**
+     * Certifies the run if every chunk is done. Of several instances finishing at once, the one
+     * that takes the aggregation lease does the aggregation; the lease moves the run from
+     * PROCESSING to COMPLETED, or takes over a COMPLETED run whose lease expired.
+     */
+    private void finishIfLast(UUID runId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (chunkRepository.countByRunIdAndStatusNot(runId, PayrollWorkChunk.ChunkStatus.DONE) > 0
+                || payrollRunRepository.claimAggregation(runId, instanceId, now, now.plusSeconds(leaseSeconds),
+                        PayrollRun.PayrollStatus.PROCESSING, PayrollRun.PayrollStatus.COMPLETED) == 0) {
+            return;
+        }
+        try {
+            long salaryCents = 0;
+            int employeeCount = 0;
+            for (PayrollWorkChunk chunk : chunkRepository.findByRunId(runId)) {
+                salaryCents += chunk.getSalaryCents();
+                employeeCount += chunk.getEmployeeCount();
+            }
+            if (employeeCount == 0) {
+                throw new IllegalStateException("No valid employees found for payroll processing");
+            }
+            Map<UUID, byte[]> leaves = new HashMap<>();
+            for (Object[] row : payslipLineRepository.findLeafHashesByRunId(runId)) {
+                leaves.put((UUID) row[0], HashUtil.fromHex((String) row[1]));
+            }
+            BigDecimal monthlyTotal = BigDecimal.valueOf(salaryCents, 2)
+                    .divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP);
+            PayrollPipeline.Result result = new PayrollPipeline.Result(employeeCount, 0, monthlyTotal,
+                    payrollPipeline.merkleRoot(leaves));
+
+            PayrollRun run = payrollRunRepository.findById(runId)
+                    .orElseThrow(() -> new IllegalStateException("Payroll run " + runId + " not found"));
+            if (run.getStatus() != PayrollRun.PayrollStatus.COMPLETED || !instanceId.equals(run.getAggregatingOwner())) {
+                logger.warn("Payroll run {} was taken over or failed while {} aggregated it", runId, instanceId);
+                return;
+            }
+            payrollCertifier.certify(run, result);
+            logger.info("Payroll run {} certified by {} with {} employees", runId, instanceId, employeeCount);
+        } catch (RuntimeException e) {
+            logger.error("Aggregating payroll run {} failed", runId, e);
+            payrollRunRepository.fail(runId, PayrollRun.PayrollStatus.COMPLETED, PayrollRun.PayrollStatus.FAILED);
+        }
+    }
+
+    private PayrollRun reload(UUID runId) {
+        // The caller's persistence context may still hold the run as it was submitted
+        return transactionTemplate.execute(status -> {
+            PayrollRun run = payrollRunRepository.findById(runId)
+                    .orElseThrow(() -> new IllegalStateException("Payroll run " + runId + " not found"));
+            entityManager.refresh(run);
+            return run;
+        });
+    }
+}
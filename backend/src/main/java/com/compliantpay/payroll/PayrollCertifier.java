@@ -0,0 +1,88 @@
+package com.compliantpay.payroll;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.client.BlockchainAnchorClient;
+import com.compliantpay.model.PayrollRun;
+import com.compliantpay.repository.PayrollRunRepository;
+import com.compliantpay.service.BlockchainService;
+import com.compliantpay.service.ComplianceService;
+
+/**
+ * Final step of a payroll run once its payslip lines are written: records the totals and data
+ * hash in the ledger, anchors the hash remotely and stores the run as certified.
+ */
+@Component
+public class PayrollCertifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollCertifier.class);
+
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+
+    @Autowired
+    private ComplianceService complianceService;
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    @Autowired
+    private BlockchainAnchorClient anchorClient;
+
+    @Autowired
+    private AnchorReconciler anchorReconciler;
+
+    @Autowired
+    private PayrollPipeline payrollPipeline;
+
+    public PayrollRun certify(PayrollRun run, PayrollPipeline.Result result) {
+        run.setTotalAmount(result.getMonthlyTotal());
+        run.setEmployeeCount(result.getEmployeeCount());
+
+        // Record on blockchain
+        String txHash = payrollPipeline.timeStage(PayrollPipeline.ANCHOR, () ->
+            blockchainService.recordPayrollTransaction(
+                run.getId().toString(),
+                run.getPayPeriod(),
+                result.getMonthlyTotal(),
+                result.getDataHash()
+            )
+        );
+
+        // Update payroll run with blockchain info
+        run.setBlockchainTxHash(txHash);
+        anchorRemotely(run, result.getDataHash());
+        // The hash is pinned with the rule version when the run starts; older runs only carry the version
+        if (run.getComplianceRulesHash() == null) {
+            run.setComplianceRulesHash(complianceService.getRuleSnapshot(run.getRulesVersion()).getRulesHash());
+        }
+        run.setStatus(PayrollRun.PayrollStatus.CERTIFIED);
+        run.setProcessedAt(LocalDateTime.now());
+        return payrollRunRepository.save(run);
+    }
+
+    /**
+     * Anchors the run's data hash through blockchain-service when enabled. The local ledger entry
+     * already certifies the run, so an unavailable service leaves the anchor without a receipt
+     * instead of failing the run; {@link AnchorReconciler} anchors it again and follows the
+     * receipt until the anchor is confirmed.
+     */
+    private void anchorRemotely(PayrollRun run, String dataHash) {
+        if (!anchorClient.isEnabled()) {
+            return;
+        }
+        run.setAnchorDigest(dataHash);
+        try {
+            AnchorReconciler.record(run, anchorReconciler.anchor(run).join());
+        } catch (CompletionException e) {
+            logger.warn("Payroll run {} could not be anchored remotely: {}", run.getId(),
+                e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.compliantpay.payroll;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import com.compliantpay.model.Employee;
+import com.compliantpay.model.PayslipLine;
+
+/**
+ * A slice of a payroll run flowing through the pipeline. Each stage fills in its own column
+ * and hands the chunk on; no two stages touch the same chunk at the same time.
+ */
+public class PayrollChunk {
+
+    private final int sequence;
+    private final List<Employee> employees;
+    private PayslipLine[] reusedLines;
+    private BigDecimal[] annualTaxes;
+    private List<Map<String, BigDecimal>> taxBreakdowns;
+    private byte[][] leafHashes;
+
+    public PayrollChunk(int sequence, List<Employee> employees) {
+        this.sequence = sequence;
+        this.employees = employees;
+    }
+
+    public int getSequence() { return sequence; }
+
+    public List<Employee> getEmployees() { return employees; }
+
+    public int size() { return employees.size(); }
+
+    /**
+     * Prior payslip lines carried over in delta runs; null entries were recomputed
+     */
+    public PayslipLine[] getReusedLines() { return reusedLines; }
+    public void setReusedLines(PayslipLine[] reusedLines) { this.reusedLines = reusedLines; }
+
+    public boolean isReused(int index) { return reusedLines != null && reusedLines[index] != null; }
+
+    public BigDecimal[] getAnnualTaxes() { return annualTaxes; }
+    public void setAnnualTaxes(BigDecimal[] annualTaxes) { this.annualTaxes = annualTaxes; }
+
+    public List<Map<String, BigDecimal>> getTaxBreakdowns() { return taxBreakdowns; }
+    public void setTaxBreakdowns(List<Map<String, BigDecimal>> taxBreakdowns) { this.taxBreakdowns = taxBreakdowns; }
+
+    public byte[][] getLeafHashes() { return leafHashes; }
+    public void setLeafHashes(byte[][] leafHashes) { this.leafHashes = leafHashes; }
+}
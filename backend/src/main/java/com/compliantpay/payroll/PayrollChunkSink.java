@@ -0,0 +1,11 @@
+package com.compliantpay.payroll;
+
+import com.compliantpay.model.PayrollRun;
+
+/**
+ * Receives fully computed and hashed chunks in the persist stage of the payroll pipeline
+ */
+public interface PayrollChunkSink {
+
+    void accept(PayrollRun run, PayrollChunk chunk);
+}
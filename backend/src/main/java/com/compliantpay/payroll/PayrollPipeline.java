@@ -0,0 +1,548 @@
+package com.compliantpay.payroll;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.model.Employee;
+import com.compliantpay.model.PayrollRun;
+import com.compliantpay.model.PayslipLine;
+import com.compliantpay.model.TaxRuleSnapshot;
+import com.compliantpay.repository.EmployeeRepository;
+import com.compliantpay.repository.PayrollRunRepository;
+import com.compliantpay.repository.PayslipLineRepository;
+import com.compliantpay.service.ComplianceService;
+import com.compliantpay.service.JurisdictionRegistry;
+import com.compliantpay.util.HashUtil;
+import com.compliantpay.util.MerkleTree;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Staged payroll computation: fetch, compute, hash and persist run on their own threads and
+ * exchange chunks through bounded queues. Fetching the next chunk overlaps with computing the
+ * current one, and hashing/persisting trail behind; a full queue blocks its producer, so at most
+ * a few chunks per stage are held in memory regardless of run size.
+ *
+ * The run hash is the Merkle root over one leaf per employee, ordered by employee id. In delta
+ * mode employees unchanged since the last certified run keep that run's payslip line and leaf,
+ * and only the recomputed leaves are rehashed into a copy of its tree.
+ */
+@Component
+public class PayrollPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollPipeline.class);
+
+    private static final PayrollChunk END = new PayrollChunk(-1, List.of());
+    private static final long POLL_MILLIS = 100;
+
+    public static final String FETCH = "fetch";
+    public static final String COMPUTE = "compute";
+    public static final String HASH = "hash";
+    public static final String PERSIST = "persist";
+    public static final String ANCHOR = "anchor";
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ComplianceService complianceService;
+
+    @Autowired
+    private JurisdictionRegistry jurisdictionRegistry;
+
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+
+    @Autowired
+    private PayslipLineRepository payslipLineRepository;
+
+    @Autowired(required = false)
+    private List<PayrollChunkSink> sinks = List.of();
+
+    @Autowired
+    @Qualifier("payrollExecutor")
+    private TaskExecutor payrollExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.payroll.pipeline.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.payroll.pipeline.queue-capacity:4}")
+    private int queueCapacity;
+
+    // Tree of the most recent run, so the next delta run can start from it without rehashing
+    private volatile RunTree lastTree;
+
+    /**
+     * Outcome of the compute side of a run; anchoring is left to the caller
+     */
+    public static class Result {
+        private final int employeeCount;
+        private final int reusedCount;
+        private final BigDecimal monthlyTotal;
+        private final String dataHash;
+
+        Result(int employeeCount, int reusedCount, BigDecimal monthlyTotal, String dataHash) {
+            this.employeeCount = employeeCount;
+            this.reusedCount = reusedCount;
+            this.monthlyTotal = monthlyTotal;
+            this.dataHash = dataHash;
+        }
+
+        public int getEmployeeCount() { return employeeCount; }
+        public int getReusedCount() { return reusedCount; }
+        public BigDecimal getMonthlyTotal() { return monthlyTotal; }
+        public String getDataHash() { return dataHash; }
+    }
+
+    /**
+     * Totals of a single chunk computed by {@link #computeChunk}
+     */
+    public static class ChunkResult {
+        private final int employeeCount;
+        private final long salaryCents;
+
+        ChunkResult(int employeeCount, long salaryCents) {
+            this.employeeCount = employeeCount;
+            this.salaryCents = salaryCents;
+        }
+
+        public int getEmployeeCount() { return employeeCount; }
+        public long getSalaryCents() { return salaryCents; }
+    }
+
+    public Result run(PayrollRun run, List<UUID> employeeIds) {
+        return run(run, employeeIds, false);
+    }
+
+    /**
+     * @param delta reuse results of the last certified run for employees not updated since it started
+     */
+    public Result run(PayrollRun run, List<UUID> employeeIds, boolean delta) {
+        // The whole run computes with the rule version pinned when it was created
+        TaxRuleSnapshot rules = complianceService.getRuleSnapshot(run.getRulesVersion());
+        Run state = new Run(run, rules, delta ? loadBaseline(rules) : null);
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(employeeIds));
+        BlockingQueue<PayrollChunk> fetched = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<PayrollChunk> computed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<PayrollChunk> hashed = new ArrayBlockingQueue<>(queueCapacity);
+
+        CompletableFuture<?>[] stages = {
+            stage(state, FETCH, () -> fetch(state, ids, fetched)),
+            stage(state, COMPUTE, () -> transform(state, COMPUTE, fetched, computed, chunk -> compute(state, chunk))),
+            stage(state, HASH, () -> transform(state, HASH, computed, hashed, chunk -> hash(state, chunk))),
+            stage(state, PERSIST, () -> persist(state, hashed))
+        };
+        CompletableFuture.allOf(stages).join();
+
+        if (state.failure != null) {
+            throw new RuntimeException(state.failure.getMessage(), state.failure);
+        }
+
+        BigDecimal monthlyTotal = BigDecimal.valueOf(state.salaryCents, 2)
+                .divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP);
+        RunTree tree = buildTree(state);
+        lastTree = tree;
+        String dataHash = HashUtil.toHex(tree.tree.root());
+        logger.info("Payroll run {} computed {} employees ({} reused) in {} chunks",
+                run.getId(), state.employeeCount, state.reusedCount, state.chunks);
+        return new Result(state.employeeCount, state.reusedCount, monthlyTotal, dataHash);
+    }
+
+    /**
+     * Fetches, computes, hashes and hands one chunk of a run to the sinks on the calling thread.
+     * Used by distributed runs, where each instance works through the chunks it has claimed;
+     * payslip lines join the caller's transaction. Delta reuse does not apply.
+     */
+    public ChunkResult computeChunk(PayrollRun run, int sequence, List<UUID> employeeIds) {
+        Run state = new Run(run, complianceService.getRuleSnapshot(run.getRulesVersion()), null);
+        long start = System.nanoTime();
+        PayrollChunk chunk = new PayrollChunk(sequence, employeeRepository.findAllById(employeeIds));
+        record(FETCH, start, chunk.size());
+
+        start = System.nanoTime();
+        compute(state, chunk);
+        record(COMPUTE, start, chunk.size());
+
+        start = System.nanoTime();
+        hash(state, chunk);
+        record(HASH, start, chunk.size());
+
+        start = System.nanoTime();
+        long salaryCents = 0;
+        for (PayrollChunkSink sink : sinks) {
+            sink.accept(run, chunk);
+        }
+        for (Employee employee : chunk.getEmployees()) {
+            salaryCents += toCents(employee.getSalary());
+        }
+        record(PERSIST, start, chunk.size());
+        return new ChunkResult(chunk.size(), salaryCents);
+    }
+
+    /**
+     * Hex Merkle root over per-employee leaves, ordered by employee id as in {@link #run}
+     */
+    public String merkleRoot(Map<UUID, byte[]> leaves) {
+        UUID[] ids = leaves.keySet().toArray(new UUID[0]);
+        Arrays.sort(ids);
+        return HashUtil.toHex(freshTree(ids, leaves).root());
+    }
+
+    /**
+     * Times a step that runs outside the queued stages, such as anchoring the final hash
+     */
+    public <T> T timeStage(String stage, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            stageTimer(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void fetch(Run state, List<UUID> employeeIds, BlockingQueue<PayrollChunk> out) throws InterruptedException {
+        int sequence = 0;
+        for (int from = 0; from < employeeIds.size() && !state.aborted(); from += chunkSize) {
+            List<UUID> ids = employeeIds.subList(from, Math.min(from + chunkSize, employeeIds.size()));
+            long start = System.nanoTime();
+            List<Employee> employees = employeeRepository.findAllById(ids);
+            record(FETCH, start, employees.size());
+            if (!employees.isEmpty()) {
+                offer(state, out, new PayrollChunk(sequence++, employees));
+            }
+        }
+        offer(state, out, END);
+    }
+
+    private interface ChunkStep {
+        void apply(PayrollChunk chunk) throws Exception;
+    }
+
+    private void transform(Run state, String stage, BlockingQueue<PayrollChunk> in,
+                           BlockingQueue<PayrollChunk> out, ChunkStep step) throws Exception {
+        PayrollChunk chunk;
+        while ((chunk = take(state, in)) != END) {
+            long start = System.nanoTime();
+            step.apply(chunk);
+            record(stage, start, chunk.size());
+            offer(state, out, chunk);
+        }
+        offer(state, out, END);
+    }
+
+    private void compute(Run state, PayrollChunk chunk) {
+        List<Employee> employees = chunk.getEmployees();
+        BigDecimal[] taxes = new BigDecimal[employees.size()];
+        PayslipLine[] reused = new PayslipLine[taxes.length];
+        List<Map<String, BigDecimal>> breakdowns = new ArrayList<>(taxes.length);
+        for (int i = 0; i < taxes.length; i++) {
+            Employee employee = employees.get(i);
+            reused[i] = state.baseline != null ? state.baseline.reusableLine(employee) : null;
+            if (reused[i] != null) {
+                breakdowns.add(null);
+                continue;
+            }
+            Map<String, BigDecimal> breakdown =
+                    complianceService.calculateTaxBreakdown(state.rules, jurisdictionCodeOf(employee), employee.getSalary());
+            BigDecimal total = BigDecimal.ZERO;
+            for (BigDecimal ruleTax : breakdown.values()) {
+                total = total.add(ruleTax);
+            }
+            taxes[i] = total.setScale(2, RoundingMode.HALF_UP);
+            breakdowns.add(breakdown);
+        }
+        chunk.setReusedLines(reused);
+        chunk.setAnnualTaxes(taxes);
+        chunk.setTaxBreakdowns(breakdowns);
+    }
+
+    private void hash(Run state, PayrollChunk chunk) {
+        List<Employee> employees = chunk.getEmployees();
+        byte[][] leaves = new byte[employees.size()][];
+        ByteBuffer line = ByteBuffer.allocate(32);
+        for (int i = 0; i < leaves.length; i++) {
+            if (chunk.isReused(i)) {
+                leaves[i] = HashUtil.fromHex(chunk.getReusedLines()[i].getLeafHash());
+                continue;
+            }
+            Employee employee = employees.get(i);
+            line.clear();
+            line.putLong(employee.getId().getMostSignificantBits())
+                .putLong(employee.getId().getLeastSignificantBits())
+                .putLong(toCents(employee.getSalary()))
+                .putLong(toCents(chunk.getAnnualTaxes()[i]));
+            leaves[i] = state.digest.digest(line.array());
+        }
+        chunk.setLeafHashes(leaves);
+    }
+
+    private void persist(Run state, BlockingQueue<PayrollChunk> in) throws InterruptedException {
+        PayrollChunk chunk;
+        while ((chunk = take(state, in)) != END) {
+            long start = System.nanoTime();
+            for (PayrollChunkSink sink : sinks) {
+                sink.accept(state.run, chunk);
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                Employee employee = chunk.getEmployees().get(i);
+                state.salaryCents += toCents(employee.getSalary());
+                state.leaves.put(employee.getId(), chunk.getLeafHashes()[i]);
+                if (chunk.isReused(i)) {
+                    state.reusedCount++;
+                } else {
+                    state.recomputed.add(employee.getId());
+                }
+            }
+            state.employeeCount += chunk.size();
+            state.chunks++;
+            record(PERSIST, start, chunk.size());
+        }
+    }
+
+    /**
+     * The last certified run, if its results can be reused: it must have been computed under the
+     * same tax rules and all of its payslip lines must carry leaf hashes.
+     */
+    private Baseline loadBaseline(TaxRuleSnapshot rules) {
+        PayrollRun previous = payrollRunRepository
+                .findFirstByStatusOrderByProcessedAtDesc(PayrollRun.PayrollStatus.CERTIFIED)
+                .orElse(null);
+        if (previous == null) {
+            logger.info("No certified payroll run to reuse; computing all employees");
+            return null;
+        }
+        if (!Objects.equals(previous.getComplianceRulesHash(), rules.getRulesHash())) {
+            logger.info("Tax rules changed since payroll run {}; computing all employees", previous.getId());
+            return null;
+        }
+        Map<UUID, PayslipLine> lines = new HashMap<>();
+        for (PayslipLine line : payslipLineRepository.findByRunIdOrderByIdAsc(previous.getId())) {
+            if (line.getLeafHash() == null) {
+                logger.info("Payroll run {} predates leaf hashes; computing all employees", previous.getId());
+                return null;
+            }
+            lines.put(line.getEmployeeId(), line);
+        }
+        return new Baseline(previous, lines);
+    }
+
+    /**
+     * Starts from the baseline's tree when the run covers exactly the same employees, so only
+     * recomputed leaves are rehashed; otherwise builds a fresh tree.
+     */
+    private RunTree buildTree(Run state) {
+        UUID[] ids = state.leaves.keySet().toArray(new UUID[0]);
+        Arrays.sort(ids);
+        Baseline baseline = state.baseline;
+        if (baseline != null && Arrays.equals(ids, baseline.sortedIds())) {
+            MerkleTree tree = baselineTree(baseline).copy();
+            for (UUID id : state.recomputed) {
+                tree.update(Arrays.binarySearch(ids, id), state.leaves.get(id));
+            }
+            return new RunTree(state.run.getId(), tree);
+        }
+        return new RunTree(state.run.getId(), freshTree(ids, state.leaves));
+    }
+
+    private static MerkleTree freshTree(UUID[] sortedIds, Map<UUID, byte[]> leaves) {
+        List<byte[]> ordered = new ArrayList<>(sortedIds.length);
+        for (UUID id : sortedIds) {
+            ordered.add(leaves.get(id));
+        }
+        return new MerkleTree(ordered);
+    }
+
+    private MerkleTree baselineTree(Baseline baseline) {
+        RunTree cached = lastTree;
+        if (cached != null && cached.runId.equals(baseline.run.getId())) {
+            return cached.tree;
+        }
+        // Not cached (e.g. after a restart): rebuild once from the stored leaves
+        List<byte[]> leaves = new ArrayList<>(baseline.lines.size());
+        for (UUID id : baseline.sortedIds()) {
+            leaves.add(HashUtil.fromHex(baseline.lines.get(id).getLeafHash()));
+        }
+        return new MerkleTree(leaves);
+    }
+
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    private CompletableFuture<Void> stage(Run state, String name, StageBody body) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    body.run();
+                } catch (Exception e) {
+                    state.fail(e);
+                    logger.error("Payroll pipeline stage {} failed for run {}", name, state.run.getId(), e);
+                }
+            }, payrollExecutor);
+        } catch (RejectedExecutionException e) {
+            // Pool exhausted: release the stages that did start instead of leaving them blocked
+            state.fail(e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Blocks while the downstream queue is full; gives up once another stage has failed
+     */
+    private void offer(Run state, BlockingQueue<PayrollChunk> queue, PayrollChunk chunk) throws InterruptedException {
+        while (!queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (state.aborted()) {
+                return;
+            }
+        }
+    }
+
+    private PayrollChunk take(Run state, BlockingQueue<PayrollChunk> queue) throws InterruptedException {
+        PayrollChunk chunk;
+        while ((chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            if (state.aborted()) {
+                return END;
+            }
+        }
+        return chunk;
+    }
+
+    private void record(String stage, long startNanos, int items) {
+        stageTimer(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("payroll.pipeline.items")
+                .description("Employees processed per payroll pipeline stage")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .increment(items);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("payroll.pipeline.stage")
+                .description("Time spent per chunk in each payroll pipeline stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private int jurisdictionCodeOf(Employee employee) {
+        Integer code = employee.getJurisdictionCode();
+        // Rows written before jurisdiction codes existed are resolved once by name
+        return code != null ? code : jurisdictionRegistry.intern(employee.getLocation());
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Per-run state. The digest is only used by the hash stage and the accumulators only by the
+     * persist stage; the joins at the end of {@link #run} publish them back to the caller.
+     */
+    private static class Run {
+        private final PayrollRun run;
+        private final TaxRuleSnapshot rules;
+        private final Baseline baseline;
+        private final MessageDigest digest;
+        private final Map<UUID, byte[]> leaves = new HashMap<>();
+        private final List<UUID> recomputed = new ArrayList<>();
+        private volatile Throwable failure;
+        private long salaryCents;
+        private int employeeCount;
+        private int reusedCount;
+        private int chunks;
+
+        Run(PayrollRun run, TaxRuleSnapshot rules, Baseline baseline) {
+            this.run = run;
+            this.rules = rules;
+            this.baseline = baseline;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("Error generating hash", e);
+            }
+        }
+
+        boolean aborted() {
+            return failure != null;
+        }
+
+        void fail(Throwable cause) {
+            if (failure == null) {
+                failure = cause;
+            }
+        }
+    }
+
+    private static class Baseline {
+        private final PayrollRun run;
+        private final Map<UUID, PayslipLine> lines;
+        private UUID[] sortedIds;
+
+        Baseline(PayrollRun run, Map<UUID, PayslipLine> lines) {
+            this.run = run;
+            this.lines = lines;
+        }
+
+        /**
+         * The prior line for an employee whose record has not been touched since the baseline run
+         * started, or null if the employee has to be recomputed
+         */
+        PayslipLine reusableLine(Employee employee) {
+            PayslipLine line = lines.get(employee.getId());
+            if (line == null || employee.getUpdatedAt() == null
+                    || !employee.getUpdatedAt().isBefore(run.getCreatedAt())) {
+                return null;
+            }
+            return line;
+        }
+
+        UUID[] sortedIds() {
+            if (sortedIds == null) {
+                UUID[] ids = lines.keySet().toArray(new UUID[0]);
+                Arrays.sort(ids);
+                sortedIds = ids;
+            }
+            return sortedIds;
+        }
+    }
+
+    private static class RunTree {
+        private final UUID runId;
+        private final MerkleTree tree;
+
+        RunTree(UUID runId, MerkleTree tree) {
+            this.runId = runId;
+            this.tree = tree;
+        }
+    }
+}
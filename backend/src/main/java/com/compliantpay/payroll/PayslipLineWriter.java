@@ -0,0 +1,216 @@
+package com.compliantpay.payroll;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.compliantpay.model.Employee;
+import com.compliantpay.model.PayrollRun;
+import com.compliantpay.model.PayslipLine;
+import com.compliantpay.util.HashUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Persists one payslip line per employee as chunks leave the pipeline. PostgreSQL gets the rows
+ * through COPY; other databases (H2 in development) through a JDBC batch insert. Ids are taken
+ * from payslip_line_seq one block of {@link #ID_BLOCK} at a time, matching the pooled-lo
+ * allocation Hibernate uses for {@link com.compliantpay.model.PayslipLine}.
+ */
+@Component
+public class PayslipLineWriter implements PayrollChunkSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayslipLineWriter.class);
+
+    private static final String SEQUENCE = "payslip_line_seq";
+    private static final int ID_BLOCK = 50;
+    private static final BigDecimal MONTHS = BigDecimal.valueOf(12);
+
+    private static final String INSERT_SQL = "INSERT INTO payslip_lines "
+            + "(id, run_id, employee_id, gross_amount, tax_amount, net_amount, tax_breakdown, leaf_hash, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COPY_SQL = "COPY payslip_lines "
+            + "(id, run_id, employee_id, gross_amount, tax_amount, net_amount, tax_breakdown, leaf_hash, created_at) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private DataFieldMaxValueIncrementer idIncrementer;
+    private TransactionTemplate transactionTemplate;
+    private boolean copySupported;
+
+    @PostConstruct
+    public void init() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        copySupported = "PostgreSQL".equalsIgnoreCase(product);
+        idIncrementer = copySupported
+                ? new PostgresSequenceMaxValueIncrementer(dataSource, SEQUENCE)
+                : new H2SequenceMaxValueIncrementer(dataSource, SEQUENCE);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        logger.info("Payslip lines will be written via {}", copySupported ? "COPY" : "JDBC batch insert");
+    }
+
+    @Override
+    public void accept(PayrollRun run, PayrollChunk chunk) {
+        List<Row> rows = toRows(run.getId(), chunk);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (copySupported) {
+                copy(rows);
+            } else {
+                batchInsert(rows);
+            }
+        });
+    }
+
+    private List<Row> toRows(UUID runId, PayrollChunk chunk) {
+        List<Employee> employees = chunk.getEmployees();
+        LocalDateTime now = LocalDateTime.now();
+        Row[] rows = new Row[employees.size()];
+        long nextId = 0;
+        long blockEnd = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (nextId == blockEnd) {
+                // pooled-lo: the sequence value is the first id of a block of ID_BLOCK
+                nextId = idIncrementer.nextLongValue();
+                blockEnd = nextId + ID_BLOCK;
+            }
+            Employee employee = employees.get(i);
+            String leafHash = HashUtil.toHex(chunk.getLeafHashes()[i]);
+            if (chunk.isReused(i)) {
+                PayslipLine prior = chunk.getReusedLines()[i];
+                rows[i] = new Row(nextId++, runId, employee.getId(), prior.getGrossAmount(), prior.getTaxAmount(),
+                        prior.getNetAmount(), prior.getTaxBreakdown(), leafHash, now);
+                continue;
+            }
+            BigDecimal gross = monthly(employee.getSalary());
+            BigDecimal tax = monthly(chunk.getAnnualTaxes()[i]);
+            rows[i] = new Row(nextId++, runId, employee.getId(), gross, tax, gross.subtract(tax),
+                    toJson(chunk.getTaxBreakdowns().get(i)), leafHash, now);
+        }
+        return List.of(rows);
+    }
+
+    private void batchInsert(List<Row> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                ps.setLong(1, row.id);
+                ps.setObject(2, row.runId);
+                ps.setObject(3, row.employeeId);
+                ps.setBigDecimal(4, row.gross);
+                ps.setBigDecimal(5, row.tax);
+                ps.setBigDecimal(6, row.net);
+                ps.setString(7, row.breakdown);
+                ps.setString(8, row.leafHash);
+                ps.setTimestamp(9, Timestamp.valueOf(row.createdAt));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void copy(List<Row> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 192);
+        for (Row row : rows) {
+            csv.append(row.id).append(',')
+               .append(row.runId).append(',')
+               .append(row.employeeId).append(',')
+               .append(row.gross.toPlainString()).append(',')
+               .append(row.tax.toPlainString()).append(',')
+               .append(row.net.toPlainString()).append(',')
+               .append('"').append(row.breakdown.replace("\"", "\"\"")).append('"').append(',')
+               .append(row.leafHash).append(',')
+               .append(Timestamp.valueOf(row.createdAt)).append('\n');
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return new CopyManager(connection.unwrap(BaseConnection.class))
+                        .copyIn(COPY_SQL, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("COPY into payslip_lines failed", e);
+            }
+        });
+    }
+
+    private String toJson(Map<String, BigDecimal> annualBreakdown) {
+        Map<String, BigDecimal> monthlyBreakdown = new LinkedHashMap<>();
+        annualBreakdown.forEach((rule, amount) -> monthlyBreakdown.put(rule, monthly(amount)));
+        try {
+            return objectMapper.writeValueAsString(monthlyBreakdown);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing tax breakdown", e);
+        }
+    }
+
+    private static BigDecimal monthly(BigDecimal annual) {
+        return annual.divide(MONTHS, 2, RoundingMode.HALF_UP);
+    }
+
+    private static class Row {
+        private final long id;
+        private final UUID runId;
+        private final UUID employeeId;
+        private final BigDecimal gross;
+        private final BigDecimal tax;
+        private final BigDecimal net;
+        private final String breakdown;
+        private final String leafHash;
+        private final LocalDateTime createdAt;
+
+        Row(long id, UUID runId, UUID employeeId, BigDecimal gross, BigDecimal tax, BigDecimal net,
+            String breakdown, String leafHash, LocalDateTime createdAt) {
+            this.id = id;
+            this.runId = runId;
+            this.employeeId = employeeId;
+            this.gross = gross;
+            this.tax = tax;
+            this.net = net;
+            this.breakdown = breakdown;
+            this.leafHash = leafHash;
+            this.createdAt = createdAt;
+        }
+    }
+}
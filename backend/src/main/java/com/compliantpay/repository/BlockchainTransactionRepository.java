@@ -1,6 +1,7 @@
 package com.compliantpay.repository;
 
 import com.compliantpay.model.BlockchainTransaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,4 +14,11 @@ public interface BlockchainTransactionRepository extends JpaRepository<Blockchai
     List<BlockchainTransaction> findAllByOrderByTimestampDesc();
     List<BlockchainTransaction> findByTransactionType(String transactionType);
     Optional<BlockchainTransaction> findByTransactionHash(String transactionHash);
+    
+    Optional<BlockchainTransaction> findFirstByOrderByBlockNumberDesc();
+    
+    boolean existsByTransactionHashAndStatus(String transactionHash, String status);
+    
+    // Keyset paging through the chain, so reading it never holds more than one page
+    List<BlockchainTransaction> findByBlockNumberGreaterThanOrderByBlockNumberAsc(Long blockNumber, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.compliantpay.repository;
+
+import com.compliantpay.model.Jurisdiction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface JurisdictionRepository extends JpaRepository<Jurisdiction, Integer> {
+    Optional<Jurisdiction> findByName(String name);
+}
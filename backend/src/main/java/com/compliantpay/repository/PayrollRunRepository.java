@@ -1,14 +1,74 @@
 package com.compliantpay.repository;
 
 import com.compliantpay.model.PayrollRun;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface PayrollRunRepository extends JpaRepository<PayrollRun, UUID> {
     List<PayrollRun> findAllByOrderByRunDateDesc();
+    
+    // Cursor for exports: rows are fetched from the database in batches as the stream is consumed
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    Stream<PayrollRun> streamAllByOrderByRunDateDesc();
     List<PayrollRun> findByStatus(PayrollRun.PayrollStatus status);
-}
\ No newline at end of file
+    Optional<PayrollRun> findFirstByStatusOrderByProcessedAtDesc(PayrollRun.PayrollStatus status);
+    Optional<PayrollRun> findByIdempotencyOwnerAndIdempotencyKey(String idempotencyOwner, String idempotencyKey);
+    
+    @Query("SELECT DISTINCT r.rulesVersion FROM PayrollRun r WHERE r.status IN :statuses AND r.rulesVersion IS NOT NULL")
+    List<Long> findRulesVersionsByStatusIn(@Param("statuses") Collection<PayrollRun.PayrollStatus> statuses);
+    
+    // Compare-and-set on the status; 0 means the run was not in the expected status
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayrollRun r SET r.status = :to WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") UUID id, @Param("from") PayrollRun.PayrollStatus from, @Param("to") PayrollRun.PayrollStatus to);
+    
+    // Marks the run failed and releases its idempotency key so the client can retry
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayrollRun r SET r.status = :failed, r.idempotencyKey = null WHERE r.id = :id AND r.status = :from")
+    int fail(@Param("id") UUID id, @Param("from") PayrollRun.PayrollStatus from, @Param("failed") PayrollRun.PayrollStatus failed);
+    
+    // Same as fail, for a run that may be in any of the given statuses
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayrollRun r SET r.status = :failed, r.idempotencyKey = null WHERE r.id = :id AND r.status IN :from")
+    int failFrom(@Param("id") UUID id, @Param("from") Collection<PayrollRun.PayrollStatus> from, @Param("failed") PayrollRun.PayrollStatus failed);
+    
+    /**
+     * Takes the aggregation lease of a distributed run: moves it from PROCESSING to COMPLETED, or
+     * takes over a COMPLETED run whose aggregating instance let the lease run out.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayrollRun r SET r.status = :completed, r.aggregatingOwner = :owner, r.aggregationExpiresAt = :expiresAt "
+            + "WHERE r.id = :id AND (r.status = :processing OR (r.status = :completed AND r.aggregationExpiresAt < :now))")
+    int claimAggregation(@Param("id") UUID id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                         @Param("expiresAt") LocalDateTime expiresAt,
+                         @Param("processing") PayrollRun.PayrollStatus processing, @Param("completed") PayrollRun.PayrollStatus completed);
+    
+    // COMPLETED distributed runs whose aggregating instance did not finish within its lease
+    @Query("SELECT r.id FROM PayrollRun r WHERE r.status = :completed AND r.aggregatingOwner IS NOT NULL AND r.aggregationExpiresAt < :now")
+    List<UUID> findStaleAggregations(@Param("completed") PayrollRun.PayrollStatus completed, @Param("now") LocalDateTime now);
+    
+    // Certified runs whose remote anchor is not confirmed yet, oldest first
+    @Query("SELECT r FROM PayrollRun r WHERE r.status = :certified AND r.anchorDigest IS NOT NULL AND r.anchorBlockNumber IS NULL "
+            + "ORDER BY r.processedAt")
+    List<PayrollRun> findUnconfirmedAnchors(@Param("certified") PayrollRun.PayrollStatus certified, Pageable pageable);
+}
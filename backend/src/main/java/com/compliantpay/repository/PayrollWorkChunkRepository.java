@@ -0,0 +1,49 @@
+package com.compliantpay.repository;
+
+import com.compliantpay.model.PayrollWorkChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PayrollWorkChunkRepository extends JpaRepository<PayrollWorkChunk, UUID> {
+
+    /**
+     * Locks the oldest claimable chunk of a run still in progress. Rows locked by other instances
+     * are skipped rather than waited for; must be called inside a transaction.
+     */
+    @Query(value = "SELECT * FROM payroll_chunks c "
+            + "WHERE (c.status = 'PENDING' OR (c.status = 'CLAIMED' AND c.lease_expires_at < :now)) "
+            + "AND EXISTS (SELECT 1 FROM payroll_runs r WHERE r.id = c.run_id AND r.status = 'PROCESSING') "
+            + "ORDER BY c.created_at, c.seq LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<PayrollWorkChunk> lockNextClaimable(@Param("now") LocalDateTime now);
+
+    // 0 means the lease ran out and the chunk was claimed by another instance meanwhile
+    @Modifying
+    @Query("UPDATE PayrollWorkChunk c SET c.status = :done, c.employeeCount = :employeeCount, "
+            + "c.salaryCents = :salaryCents, c.completedAt = :now "
+            + "WHERE c.id = :id AND c.owner = :owner AND c.status = :claimed")
+    int complete(@Param("id") UUID id, @Param("owner") String owner, @Param("employeeCount") int employeeCount,
+                 @Param("salaryCents") long salaryCents, @Param("now") LocalDateTime now,
+                 @Param("claimed") PayrollWorkChunk.ChunkStatus claimed, @Param("done") PayrollWorkChunk.ChunkStatus done);
+
+    // Hands a chunk back after a failed attempt so any instance can retry it
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayrollWorkChunk c SET c.status = :pending, c.owner = null, c.leaseExpiresAt = null "
+            + "WHERE c.id = :id AND c.owner = :owner AND c.status = :claimed")
+    int release(@Param("id") UUID id, @Param("owner") String owner,
+                @Param("claimed") PayrollWorkChunk.ChunkStatus claimed, @Param("pending") PayrollWorkChunk.ChunkStatus pending);
+
+    long countByRunIdAndStatusNot(UUID runId, PayrollWorkChunk.ChunkStatus status);
+
+    List<PayrollWorkChunk> findByRunId(UUID runId);
+}
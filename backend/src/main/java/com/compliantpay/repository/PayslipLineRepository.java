@@ -0,0 +1,20 @@
+package com.compliantpay.repository;
+
+import com.compliantpay.model.PayslipLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PayslipLineRepository extends JpaRepository<PayslipLine, Long> {
+    List<PayslipLine> findByRunIdOrderByIdAsc(UUID runId);
+    List<PayslipLine> findByEmployeeIdOrderByIdDesc(UUID employeeId);
+    
+    // Employee id and hex leaf hash pairs of a run, for rebuilding its Merkle tree
+    @Query("SELECT p.employeeId, p.leafHash FROM PayslipLine p WHERE p.runId = :runId")
+    List<Object[]> findLeafHashesByRunId(@Param("runId") UUID runId);
+}
@@ -11,4 +11,7 @@ import java.util.UUID;
 public interface TaxRuleRepository extends JpaRepository<TaxRule, UUID> {
     List<TaxRule> findByJurisdictionAndIsActiveTrue(String jurisdiction);
     List<TaxRule> findByIsActiveTrue();
+    
+    // Stable order, so the rules hash does not depend on how rows come back
+    List<TaxRule> findByIsActiveTrueOrderByJurisdictionAscMinIncomeAscRuleNameAsc();
 }
\ No newline at end of file
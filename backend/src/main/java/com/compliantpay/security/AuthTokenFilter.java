@@ -2,7 +2,9 @@
 package com.compliantpay.security;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +17,9 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import com.compliantpay.service.impl.UserDetailsServiceImpl;
 import com.compliantpay.util.JwtUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -27,13 +32,14 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
 
-    
+    @Autowired
     private JwtUtils jwtUtils;
 
-    
+    @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
-    
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
@@ -43,7 +49,7 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             String jwt = parseJwt(request);
 
             // Validate the token
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+            if (jwt != null && validateTimed(jwt)) {
                 // Extract username from the token
                 String username = jwtUtils.getUserNameFromJwtToken(jwt);
 
@@ -71,6 +77,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private boolean validateTimed(String jwt) {
+        long start = System.nanoTime();
+        boolean valid = jwtUtils.validateJwtToken(jwt);
+        Timer.builder("auth.jwt.validation")
+                .description("Time to verify a JWT signature and expiry")
+                .tag("result", valid ? "valid" : "invalid")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return valid;
+    }
+
     /**
      * Extract JWT from "Authorization: Bearer <token>" header
      */
@@ -0,0 +1,167 @@
+package com.compliantpay.security;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.compliantpay.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Token-bucket rate limiting per caller and endpoint class.
+ * Runs after JWT authentication so authenticated callers are limited by username and anonymous
+ * ones by client address. Buckets are lock-free and live in a bounded cache that drops idle keys.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    /**
+     * Endpoint classes with separate budgets; expensive calls cannot use up the default budget
+     * and vice versa
+     */
+    enum EndpointClass {
+        PAYROLL_RUN, ANALYTICS, DEFAULT
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.rate-limiting.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limiting.requests-per-minute:100}")
+    private long requestsPerMinute;
+
+    @Value("${app.rate-limiting.burst-capacity:200}")
+    private long burstCapacity;
+
+    @Value("${app.rate-limiting.payroll-run.requests-per-minute:5}")
+    private long payrollRunRequestsPerMinute;
+
+    @Value("${app.rate-limiting.payroll-run.burst-capacity:5}")
+    private long payrollRunBurstCapacity;
+
+    @Value("${app.rate-limiting.analytics.requests-per-minute:30}")
+    private long analyticsRequestsPerMinute;
+
+    @Value("${app.rate-limiting.analytics.burst-capacity:30}")
+    private long analyticsBurstCapacity;
+
+    @Value("${app.rate-limiting.max-tracked-keys:100000}")
+    private long maxTrackedKeys;
+
+    @Value("${app.rate-limiting.idle-timeout-minutes:10}")
+    private long idleTimeoutMinutes;
+
+    private Cache<String, Bucket> buckets;
+
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(Duration.ofMinutes(idleTimeoutMinutes))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || "OPTIONS".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpoint = classify(request);
+        String key = endpoint.name() + ':' + callerOf(request);
+        Bucket bucket = buckets.get(key, k -> newBucket(endpoint));
+
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        if (probe.isConsumed()) {
+            response.setHeader("X-Rate-Limit-Remaining", Long.toString(probe.getRemainingTokens()));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1);
+        log.warn("Rate limit exceeded for {}", key);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error("Too Many Requests")
+                .message("Rate limit exceeded, retry in " + retryAfterSeconds + " seconds")
+                .path(request.getRequestURI())
+                .build();
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("POST".equalsIgnoreCase(request.getMethod()) && path.startsWith("/api/payroll/run")) {
+            return EndpointClass.PAYROLL_RUN;
+        }
+        if (path.startsWith("/api/analytics")) {
+            return EndpointClass.ANALYTICS;
+        }
+        return EndpointClass.DEFAULT;
+    }
+
+    private String callerOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getPrincipal())) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private Bucket newBucket(EndpointClass endpoint) {
+        long perMinute;
+        long capacity;
+        switch (endpoint) {
+            case PAYROLL_RUN:
+                perMinute = payrollRunRequestsPerMinute;
+                capacity = payrollRunBurstCapacity;
+                break;
+            case ANALYTICS:
+                perMinute = analyticsRequestsPerMinute;
+                capacity = analyticsBurstCapacity;
+                break;
+            default:
+                perMinute = requestsPerMinute;
+                capacity = burstCapacity;
+        }
+        return Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(capacity)
+                        .refillGreedy(perMinute, Duration.ofMinutes(1))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.compliantpay.security;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.compliantpay.exception.ErrorResponse;
+import com.compliantpay.model.User;
+import com.compliantpay.service.UsageMeteringService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Meters authenticated calls per user and endpoint class and rejects calls beyond the monthly
+ * quota of the user's subscription tier. Runs after rate limiting so throttled calls are not billed.
+ */
+public class UsageMeteringFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageMeteringFilter.class);
+
+    @Autowired
+    private UsageMeteringService usageMeteringService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.usage.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || "OPTIONS".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String feature = RateLimitFilter.classify(request).name().toLowerCase().replace('_', '-');
+        if (usageMeteringService.tryRecord(user.getUsername(), user.getSubscriptionTier(), feature)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        log.warn("Monthly {} quota exhausted for {} on tier {}", feature, user.getUsername(), user.getSubscriptionTier());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error("Quota Exceeded")
+                .message("Monthly " + feature + " quota for the " + user.getSubscriptionTier() + " tier is used up")
+                .path(request.getRequestURI())
+                .build();
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
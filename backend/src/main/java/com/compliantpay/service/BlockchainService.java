@@ -1,8 +1,11 @@
 package com.compliantpay.service;
 
+import com.compliantpay.dto.LedgerAppendDTO;
 import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.EmployeeAuditEntry;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BlockchainService {
     
@@ -11,8 +14,29 @@ public interface BlockchainService {
     
     String recordEmployeeTransaction(String transactionType, String employeeId, String details);
     
+    /**
+     * Appends a batch of employee changes in order under a single ledger lock
+     *
+     * @return the transaction hashes, in the order of {@code entries}
+     */
+    List<String> recordEmployeeTransactions(List<EmployeeAuditEntry> entries);
+    
+    /**
+     * Links entries forwarded by other instances into the chain
+     *
+     * @param epoch leadership epoch of the lease the sender addressed this instance under
+     * @throws com.compliantpay.exception.LedgerLeadershipException if this instance is not the ledger
+     *         leader in that epoch
+     */
+    List<String> appendAsLeader(List<LedgerAppendDTO> entries, long epoch);
+    
     List<BlockchainTransaction> getTransactionHistory();
     
+    /**
+     * Passes every ledger entry, in block order, to the action as it is read from the ledger store
+     */
+    void forEachTransaction(Consumer<BlockchainTransaction> action);
+    
     boolean verifyTransaction(String transactionHash);
     
     String getLastBlockHash();
@@ -0,0 +1,18 @@
+package com.compliantpay.service;
+
+import java.util.List;
+
+import com.compliantpay.model.LedgerCheckpoint;
+import com.compliantpay.model.dto.ChainVerificationDTO;
+
+public interface ChainVerificationService {
+
+    /**
+     * Checks that every ledger entry's hash recomputes and links to its predecessor.
+     *
+     * @param full ignore checkpoints and verify from the first entry
+     */
+    ChainVerificationDTO verifyChain(boolean full);
+
+    List<LedgerCheckpoint> getCheckpoints();
+}
@@ -1,10 +1,38 @@
 package com.compliantpay.service;
 
+import com.compliantpay.model.TaxRule;
+import com.compliantpay.model.TaxRuleSnapshot;
+
 import java.math.BigDecimal;
 import java.util.Map;
 
 public interface ComplianceService {
     BigDecimal calculateTax(String jurisdiction, BigDecimal annualIncome);
+    BigDecimal calculateTax(int jurisdictionCode, BigDecimal annualIncome);
+    Map<String, BigDecimal> calculateTaxBreakdown(int jurisdictionCode, BigDecimal annualIncome);
+    Map<String, BigDecimal> calculateTaxBreakdown(TaxRuleSnapshot rules, int jurisdictionCode, BigDecimal annualIncome);
     String getCurrentRulesHash();
     Map<String, Object> getTaxRulesForJurisdictionWithDetails(String jurisdiction);
-}
\ No newline at end of file
+    
+    /**
+     * The rules currently in force
+     */
+    TaxRuleSnapshot getRuleSnapshot();
+    
+    /**
+     * The rules at the given version, for runs pinned to it; null means the current rules
+     */
+    TaxRuleSnapshot getRuleSnapshot(Long version);
+    
+    /**
+     * Recompiles the rules if the stored version differs from the installed one
+     *
+     * @return true if a new version was installed
+     */
+    boolean reloadRulesIfChanged();
+    
+    /**
+     * Creates or updates a rule and publishes a new rule version
+     */
+    TaxRule saveTaxRule(TaxRule rule);
+}
@@ -0,0 +1,9 @@
+package com.compliantpay.service;
+
+public interface EmployeeAuditService {
+
+    /**
+     * @return employee changes accepted but not yet appended to the ledger
+     */
+    int getPendingCount();
+}
@@ -0,0 +1,23 @@
+package com.compliantpay.service;
+
+public interface JurisdictionRegistry {
+    
+    int UNKNOWN = -1;
+    
+    /**
+     * Returns the code for the jurisdiction, registering it if it has not been seen before
+     */
+    int intern(String jurisdiction);
+    
+    /**
+     * Returns the code for a known jurisdiction, or {@link #UNKNOWN} without registering anything
+     */
+    int lookup(String jurisdiction);
+    
+    String nameOf(int code);
+    
+    /**
+     * Exclusive upper bound of the codes handed out so far, for sizing code-indexed arrays
+     */
+    int codeLimit();
+}
@@ -2,16 +2,28 @@ package com.compliantpay.service;
 
 import com.compliantpay.model.PayrollRequest;
 import com.compliantpay.model.PayrollRun;
+import com.compliantpay.model.PayslipLine;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface PayrollService {
     
-    PayrollRun processPayroll(PayrollRequest request);
+    /**
+     * Runs payroll for the request. An idempotency key on the request is scoped to {@code requestedBy}.
+     */
+    PayrollRun processPayroll(PayrollRequest request, String requestedBy);
     
     List<PayrollRun> getPayrollHistory();
     
+    /**
+     * Passes every payroll run, newest first, to the action while reading them from a cursor
+     */
+    void forEachPayrollRun(Consumer<PayrollRun> action);
+    
     Optional<PayrollRun> getPayrollRun(UUID id);
+    
+    List<PayslipLine> getPayslipLines(UUID runId);
 }
\ No newline at end of file
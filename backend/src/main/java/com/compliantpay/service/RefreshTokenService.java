@@ -0,0 +1,39 @@
+package com.compliantpay.service;
+
+public interface RefreshTokenService {
+
+    /**
+     * Starts a new token family for a freshly authenticated user
+     *
+     * @return the opaque refresh token to hand to the client
+     */
+    String issue(String username);
+
+    /**
+     * Exchanges a refresh token for its successor. Replaying an already exchanged token revokes
+     * the whole family.
+     *
+     * @throws org.springframework.security.authentication.BadCredentialsException if the token is
+     *         unknown, expired, used or revoked
+     */
+    Rotation rotate(String refreshToken);
+
+    /**
+     * Revokes the family the token belongs to; unknown tokens are ignored
+     */
+    void revoke(String refreshToken);
+
+    class Rotation {
+        private final String username;
+        private final String refreshToken;
+
+        public Rotation(String username, String refreshToken) {
+            this.username = username;
+            this.refreshToken = refreshToken;
+        }
+
+        public String getUsername() { return username; }
+
+        public String getRefreshToken() { return refreshToken; }
+    }
+}
@@ -0,0 +1,23 @@
+package com.compliantpay.service;
+
+import java.util.Map;
+
+public interface UsageMeteringService {
+
+    /**
+     * Counts one call of {@code feature} against the user's monthly quota for their tier.
+     *
+     * @return false, without counting the call, if the quota is already used up
+     */
+    boolean tryRecord(String username, String subscriptionTier, String feature);
+
+    /**
+     * @return calls per feature in the current month, as counted in memory
+     */
+    Map<String, Long> getMonthlyUsage(String username);
+
+    /**
+     * Writes call counts accumulated since the last flush to {@code users.usage_count}
+     */
+    void flush();
+}
@@ -0,0 +1,10 @@
+package com.compliantpay.service;
+
+import com.compliantpay.model.WorkforceSnapshot;
+
+public interface WorkforceSnapshotService {
+
+    WorkforceSnapshot getSnapshot();
+
+    WorkforceSnapshot rebuild();
+}
@@ -1,41 +1,46 @@
 package com.compliantpay.service.impl;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.compliantpay.client.AiServiceClient;
+import com.compliantpay.model.WorkforceSnapshot;
 import com.compliantpay.service.AnalyticsService;
+import com.compliantpay.service.WorkforceSnapshotService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class AnalyticsServiceImpl implements AnalyticsService {
 
+    @Autowired
+    private WorkforceSnapshotService workforceSnapshotService;
+
+    @Autowired
+    private AiServiceClient aiServiceClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Override
     public Map<String, Object> predictLegislationImpact(String legislationText, Map<String, Object> employeeData) {
-        // Mock implementation - in production this would call the AI service
-        Map<String, Object> analysis = new HashMap<>();
+        WorkforceSnapshot snapshot = workforceSnapshotService.getSnapshot();
+        JsonNode result = aiServiceClient.analyzeLegislation(legislationText, snapshot);
         
-        analysis.put("projectedCostIncrease", 38500);
-        analysis.put("affectedEmployeeCount", 4);
-        analysis.put("monthlyIncrease", 3208);
-        analysis.put("effectiveDate", "2026-01-01");
-        analysis.put("costBreakdown", Map.of(
-            "increasedTaxBurden", 24200,
-            "digitalServicesTax", 4300,
-            "healthcareMandate", 10000
-        ));
-        analysis.put("affectedEmployees", new Object[]{
-            Map.of("name", "Alice Johnson", "additionalCost", 7200),
-            Map.of("name", "Diana Miller", "additionalCost", 9100),
-            Map.of("name", "George Rodriguez", "additionalCost", 7800),
-            Map.of("name", "Bob Williams", "additionalCost", 5200)
-        });
-        analysis.put("recommendations", new String[]{
-            "Consider restructuring bonus payments to occur before Jan 2026",
-            "Increase Q1 2026 payroll budget by approximately 5.3%",
-            "Update payroll system tax tables by Dec 15, 2025",
-            "Evaluate remote work policies for tax optimization"
-        });
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("projectedCostIncrease", toValue(result.path("projected_cost_increase")));
+        analysis.put("affectedEmployeeCount", toValue(result.path("affected_employee_count")));
+        analysis.put("monthlyIncrease", toValue(result.path("monthly_increase")));
+        analysis.put("effectiveDate", toValue(result.path("effective_date")));
+        analysis.put("costBreakdown", toValue(result.path("cost_breakdown")));
+        analysis.put("affectedEmployees", toValue(result.path("affected_employees")));
+        analysis.put("recommendations", toValue(result.path("recommendations")));
+        analysis.put("currentWorkforce", summarizeWorkforce(snapshot));
         
         return analysis;
     }
@@ -62,4 +67,25 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         
         return trends;
     }
-}
\ No newline at end of file
+
+    private Map<String, Object> summarizeWorkforce(WorkforceSnapshot snapshot) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("snapshotVersion", snapshot.getVersion());
+        summary.put("activeEmployees", snapshot.size());
+        summary.put("annualPayroll", BigDecimal.valueOf(snapshot.totalSalaryCents(), 2));
+
+        Map<String, Integer> headcount = new LinkedHashMap<>();
+        int[] counts = snapshot.headcountByDepartment();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                headcount.put(snapshot.department(code), counts[code]);
+            }
+        }
+        summary.put("headcountByDepartment", headcount);
+        return summary;
+    }
+
+    private Object toValue(JsonNode node) {
+        return node.isMissingNode() ? null : objectMapper.convertValue(node, Object.class);
+    }
+}
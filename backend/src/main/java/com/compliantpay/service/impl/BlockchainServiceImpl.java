@@ -1,130 +1,240 @@
 package com.compliantpay.service.impl;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.compliantpay.dto.LedgerAppendDTO;
+import com.compliantpay.exception.LedgerLeadershipException;
+import com.compliantpay.ledger.LedgerForwarder;
+import com.compliantpay.ledger.LedgerLeaderElection;
+import com.compliantpay.ledger.LedgerStore;
 import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.EmployeeAuditEntry;
 import com.compliantpay.service.BlockchainService;
+import com.compliantpay.util.LedgerHash;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 // ...existing code...
 
 @Service
 public class BlockchainServiceImpl implements BlockchainService {
     
-    private final List<BlockchainTransaction> transactionLedger = new ArrayList<>();
-    private String lastHash = "0x0000000000000000000000000000000000000000000000000000000000000000";
+    private String lastHash = LedgerHash.GENESIS_HASH;
+    // Height of the newest entry; the first entry is block 1
+    private long blockHeight;
+    // Leadership epoch the tip was last loaded in
+    private long loadedEpoch;
+    
+    // Appends come from request threads, the employee audit writer and other instances
+    // forwarding to this one while it is the ledger leader; each links to lastHash
+    private final ReentrantLock ledgerLock = new ReentrantLock();
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private LedgerLeaderElection leaderElection;
+    
+    @Autowired
+    private LedgerForwarder ledgerForwarder;
+    
+    @Autowired
+    private LedgerStore ledgerStore;
+    
+    @PostConstruct
+    public void init() {
+        loadedEpoch = leaderElection.getEpoch();
+        loadTip();
+    }
     
     @Override
     public String recordPayrollTransaction(String payrollId, String payPeriod, 
                                          java.math.BigDecimal totalAmount, String dataHash) {
         String details = String.format("Payroll Run: %s - Total: $%s", payPeriod, totalAmount);
-        
-        String transactionHash = generateTransactionHash(
-            "PAYROLL_RUN", 
-            details, 
-            dataHash, 
-            lastHash
-        );
-        
-        BlockchainTransaction transaction = new BlockchainTransaction(
-            "PAYROLL_RUN",
-            details,
-            transactionHash,
-            dataHash,
-            lastHash
-        );
-        transaction.setStatus("CONFIRMED");
-        transaction.setBlockNumber(System.currentTimeMillis());
-        
-        transactionLedger.add(transaction);
-        lastHash = transactionHash;
-        
-        return transactionHash;
+        return append(List.of(new LedgerAppendDTO("PAYROLL_RUN", details, dataHash)), "payroll").get(0);
     }
     
     @Override
     public String recordEmployeeTransaction(String transactionType, String employeeId, String details) {
         String dataHash = generateDataHash(employeeId + details);
-        String transactionHash = generateTransactionHash(
-            transactionType,
-            details,
-            dataHash,
-            lastHash
-        );
-        
-        BlockchainTransaction transaction = new BlockchainTransaction(
-            transactionType,
-            details,
-            transactionHash,
-            dataHash,
-            lastHash
-        );
+        return append(List.of(new LedgerAppendDTO(transactionType, details, dataHash)), "employee").get(0);
+    }
+    
+    @Override
+    public List<String> recordEmployeeTransactions(List<EmployeeAuditEntry> entries) {
+        // Data hashes do not depend on the chain, so they are computed here even when the leader links them
+        List<LedgerAppendDTO> appends = new ArrayList<>(entries.size());
+        for (EmployeeAuditEntry entry : entries) {
+            String dataHash = generateDataHash(entry.getEmployeeId() + entry.getDetails());
+            appends.add(new LedgerAppendDTO(entry.getTransactionType(), entry.getDetails(), dataHash));
+        }
+        return append(appends, "employee_batch");
+    }
+    
+    @Override
+    public List<String> appendAsLeader(List<LedgerAppendDTO> entries, long epoch) {
+        long start = System.nanoTime();
+        try {
+            List<String> hashes = appendLocally(entries, epoch);
+            if (hashes == null) {
+                throw new LedgerLeadershipException("this instance is not the ledger leader");
+            }
+            return hashes;
+        } finally {
+            record("blockchain.ledger.append", "kind", "forwarded", start);
+        }
+    }
+    
+    /**
+     * Links the entries here when this instance is the ledger leader, otherwise through the leader
+     */
+    private List<String> append(List<LedgerAppendDTO> entries, String kind) {
+        long start = System.nanoTime();
+        try {
+            List<String> hashes = appendLocally(entries, null);
+            return hashes != null ? hashes : ledgerForwarder.forward(entries);
+        } finally {
+            record("blockchain.ledger.append", "kind", kind, start);
+        }
+    }
+    
+    /**
+     * @param expectedEpoch epoch a forwarded append was addressed under, or null for local appends
+     * @return the transaction hashes, or null if this instance is not the ledger leader
+     */
+    private List<String> appendLocally(List<LedgerAppendDTO> entries, Long expectedEpoch) {
+        List<String> transactionHashes = new ArrayList<>(entries.size());
+        long written;
+        ledgerLock.lock();
+        try {
+            // Checked under the lock, so a batch is linked entirely or not at all
+            if (!leaderElection.isLeader()) {
+                return null;
+            }
+            if (loadedEpoch != leaderElection.getEpoch()) {
+                // A shared store may have been extended by the previous leader
+                loadedEpoch = leaderElection.getEpoch();
+                loadTip();
+            }
+            if (expectedEpoch != null && expectedEpoch != loadedEpoch) {
+                throw new LedgerLeadershipException("append was meant for epoch " + expectedEpoch
+                        + ", this leader is in epoch " + loadedEpoch);
+            }
+            String previousHash = lastHash;
+            long previousHeight = blockHeight;
+            List<BlockchainTransaction> sealed = new ArrayList<>(entries.size());
+            for (LedgerAppendDTO entry : entries) {
+                BlockchainTransaction transaction = new BlockchainTransaction(
+                    entry.getTransactionType(),
+                    entry.getDetails(),
+                    null,
+                    entry.getDataHash(),
+                    lastHash
+                );
+                lastHash = seal(transaction);
+                sealed.add(transaction);
+                transactionHashes.add(lastHash);
+            }
+            try {
+                written = leaderElection.isEnabled() ? ledgerStore.write(sealed, loadedEpoch) : ledgerStore.write(sealed);
+            } catch (RuntimeException e) {
+                // Nothing was linked; the next append continues from the stored tip
+                lastHash = previousHash;
+                blockHeight = previousHeight;
+                if (e instanceof LedgerLeadershipException) {
+                    // Another instance took the lease over; its chain goes on from a tip this one never saw
+                    leaderElection.stepDown(loadedEpoch);
+                    return null;
+                }
+                throw e;
+            }
+        } finally {
+            ledgerLock.unlock();
+        }
+        // Outside the lock, so appends queued behind this one are forced together with it
+        ledgerStore.awaitDurable(written);
+        return transactionHashes;
+    }
+    
+    private void loadTip() {
+        BlockchainTransaction tip = ledgerStore.tip();
+        lastHash = tip != null ? tip.getTransactionHash() : LedgerHash.GENESIS_HASH;
+        blockHeight = tip != null ? tip.getBlockNumber() : 0;
+    }
+    
+    /**
+     * Assigns the next block height and hashes the entry; called with the ledger lock held
+     */
+    private String seal(BlockchainTransaction transaction) {
+        transaction.setBlockNumber(++blockHeight);
+        // Microseconds survive a round trip through the database, so the hash stays recomputable
+        transaction.setTimestamp(transaction.getTimestamp().truncatedTo(ChronoUnit.MICROS));
         transaction.setStatus("CONFIRMED");
-        transaction.setBlockNumber(System.currentTimeMillis());
-        
-        transactionLedger.add(transaction);
-        lastHash = transactionHash;
-        
+        String transactionHash = generateTransactionHash(transaction);
+        transaction.setTransactionHash(transactionHash);
         return transactionHash;
     }
     
-    private String generateTransactionHash(String type, String details, String dataHash, String previousHash) {
+    private String generateTransactionHash(BlockchainTransaction transaction) {
+        long start = System.nanoTime();
         try {
-            String input = type + details + dataHash + previousHash + LocalDateTime.now().toString();
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes());
-            
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            
-            return "0x" + hexString.toString();
-            
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error generating transaction hash", e);
+            return LedgerHash.transactionHash(transaction);
+        } finally {
+            record("blockchain.hash", "kind", "transaction", start);
         }
     }
     
     private String generateDataHash(String data) {
+        long start = System.nanoTime();
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(data.getBytes());
-            
-            StringBuilder hexString = new StringBuilder();
-            for (int i = 0; i < 8; i++) { // Short hash for display
-                String hex = Integer.toHexString(0xff & hash[i]);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            
-            return hexString.toString() + "...";
-            
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error generating data hash", e);
+            return LedgerHash.dataHash(data);
+        } finally {
+            record("blockchain.hash", "kind", "data", start);
         }
     }
     
+    private void record(String name, String tagKey, String tagValue, long startNanos) {
+        Timer.builder(name)
+            .tag(tagKey, tagValue)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
     @Override
     public List<BlockchainTransaction> getTransactionHistory() {
-        return new ArrayList<>(transactionLedger);
+        return ledgerStore.readAll();
+    }
+    
+    @Override
+    public void forEachTransaction(Consumer<BlockchainTransaction> action) {
+        ledgerStore.forEach(action);
     }
     
     @Override
     public boolean verifyTransaction(String transactionHash) {
-        return transactionLedger.stream()
-            .anyMatch(tx -> tx.getTransactionHash().equals(transactionHash) && 
-                           "CONFIRMED".equals(tx.getStatus()));
+        long start = System.nanoTime();
+        boolean verified = ledgerStore.isConfirmed(transactionHash);
+        record("blockchain.ledger.verify", "result", verified ? "verified" : "not_found", start);
+        return verified;
     }
     
     @Override
     public String getLastBlockHash() {
-        return lastHash;
+        ledgerLock.lock();
+        try {
+            return lastHash;
+        } finally {
+            ledgerLock.unlock();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.compliantpay.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.compliantpay.ledger.LedgerStore;
+import com.compliantpay.model.BlockchainTransaction;
+import com.compliantpay.model.LedgerCheckpoint;
+import com.compliantpay.model.dto.ChainVerificationDTO;
+import com.compliantpay.service.ChainVerificationService;
+import com.compliantpay.util.HashUtil;
+import com.compliantpay.util.LedgerHash;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Verifies the ledger hash chain in parallel. The entries after the latest valid checkpoint are
+ * read from the store and split into contiguous segments; each segment recomputes its hashes and
+ * checks its internal links on the verification pool, and the links across segment boundaries are
+ * checked once all are done. A signed checkpoint is recorded every {@code checkpoint-interval}
+ * verified entries and kept in the ledger store, so later runs, on any instance and after
+ * restarts, resume from it without reading the entries before it. A checkpoint whose signature or
+ * boundary entry does not match falls back to verifying the whole ledger. Checkpoints are signed
+ * with their own secret; anyone holding it can vouch for entries without verifying them.
+ */
+@Service
+public class ChainVerificationServiceImpl implements ChainVerificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChainVerificationServiceImpl.class);
+
+    @Autowired
+    private LedgerStore ledgerStore;
+
+    @Autowired
+    @Qualifier("verificationExecutor")
+    private Executor verificationExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ledger.verification.min-segment-size:10000}")
+    private int minSegmentSize;
+
+    @Value("${app.ledger.verification.checkpoint-interval:10000}")
+    private int checkpointInterval;
+
+    @Value("${app.ledger.verification.checkpoint-secret:}")
+    private String checkpointSecret;
+
+    /**
+     * First broken entry within a segment, or none
+     */
+    private static class SegmentResult {
+        private final int invalidIndex;
+        private final String message;
+
+        SegmentResult(int invalidIndex, String message) {
+            this.invalidIndex = invalidIndex;
+            this.message = message;
+        }
+    }
+
+    private static final SegmentResult SEGMENT_OK = new SegmentResult(-1, null);
+
+    @PostConstruct
+    public void init() {
+        if (checkpointSecret.isBlank()) {
+            throw new IllegalStateException("app.ledger.verification.checkpoint-secret must be set");
+        }
+    }
+
+    @Override
+    public ChainVerificationDTO verifyChain(boolean full) {
+        long start = System.nanoTime();
+        long size = ledgerStore.size();
+        ChainVerificationDTO result = new ChainVerificationDTO();
+
+        int from = 0;
+        String anchorHash = LedgerHash.GENESIS_HASH;
+        // Entries from the checkpoint boundary on, or the whole ledger; index i is ledger.get(i - base)
+        int base = 0;
+        List<BlockchainTransaction> ledger = null;
+        LedgerCheckpoint checkpoint = full ? null : latestCheckpoint(size);
+        if (checkpoint != null) {
+            base = checkpoint.getEntryCount() - 1;
+            ledger = readFrom(base);
+            String problem = checkCheckpoint(checkpoint, ledger.get(0));
+            if (problem == null) {
+                from = checkpoint.getEntryCount();
+                anchorHash = checkpoint.getTransactionHash();
+            } else {
+                logger.warn("{}; verifying the whole ledger", problem);
+                base = 0;
+                ledger = null;
+            }
+        }
+        if (ledger == null) {
+            ledger = readFrom(0);
+        }
+        int total = base + ledger.size();
+        result.setTotalEntries(total);
+
+        int remaining = total - from;
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int segmentSize = Math.max(minSegmentSize, (remaining + parallelism - 1) / parallelism);
+        List<Integer> segmentStarts = new ArrayList<>();
+        List<CompletableFuture<SegmentResult>> segments = new ArrayList<>();
+        List<BlockchainTransaction> entries = ledger;
+        int offset = base;
+        for (int segmentStart = from; segmentStart < total; segmentStart += segmentSize) {
+            int begin = segmentStart;
+            int end = Math.min(total, segmentStart + segmentSize);
+            segmentStarts.add(begin);
+            segments.add(CompletableFuture.supplyAsync(() -> verifySegment(entries, offset, begin, end), verificationExecutor));
+        }
+
+        int firstInvalid = -1;
+        String message = null;
+        for (int s = 0; s < segments.size(); s++) {
+            // Stitch: each segment's first entry must link to the entry before it
+            int begin = segmentStarts.get(s);
+            String expected = begin == from ? anchorHash : ledger.get(begin - 1 - base).getTransactionHash();
+            if (!expected.equals(ledger.get(begin - base).getPreviousHash())) {
+                firstInvalid = begin;
+                message = "Entry " + begin + " does not link to its predecessor";
+                break;
+            }
+            SegmentResult segment = segments.get(s).join();
+            if (segment.invalidIndex >= 0) {
+                firstInvalid = segment.invalidIndex;
+                message = segment.message;
+                break;
+            }
+        }
+
+        int verifiedUpTo = firstInvalid >= 0 ? firstInvalid : total;
+        recordCheckpoints(ledger, base, from, verifiedUpTo);
+        return finish(result, from, verifiedUpTo - from, segments.size(), firstInvalid, message, start);
+    }
+
+    /**
+     * Reads the entries from the zero-based index on
+     */
+    private List<BlockchainTransaction> readFrom(int index) {
+        List<BlockchainTransaction> entries = new ArrayList<>();
+        ledgerStore.forEachFrom(index, entries::add);
+        return entries;
+    }
+
+    @Override
+    public List<LedgerCheckpoint> getCheckpoints() {
+        return ledgerStore.checkpoints();
+    }
+
+    private SegmentResult verifySegment(List<BlockchainTransaction> ledger, int base, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            BlockchainTransaction entry = ledger.get(i - base);
+            if (i > begin && !ledger.get(i - 1 - base).getTransactionHash().equals(entry.getPreviousHash())) {
+                return new SegmentResult(i, "Entry " + i + " does not link to its predecessor");
+            }
+            if (entry.getBlockNumber() == null || entry.getBlockNumber() != i + 1) {
+                return new SegmentResult(i, "Entry " + i + " has block height " + entry.getBlockNumber());
+            }
+            if (!LedgerHash.transactionHash(entry).equals(entry.getTransactionHash())) {
+                return new SegmentResult(i, "Entry " + i + " hash does not match its contents");
+            }
+        }
+        return SEGMENT_OK;
+    }
+
+    private LedgerCheckpoint latestCheckpoint(long ledgerSize) {
+        LedgerCheckpoint latest = null;
+        for (LedgerCheckpoint checkpoint : ledgerStore.checkpoints()) {
+            if (checkpoint.getEntryCount() <= ledgerSize) {
+                latest = checkpoint;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Checks the checkpoint's signature and that the entry it ends at still matches it
+     */
+    private String checkCheckpoint(LedgerCheckpoint checkpoint, BlockchainTransaction entry) {
+        String expected = sign(checkpoint.getEntryCount(), checkpoint.getTransactionHash());
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                checkpoint.getSignature().getBytes(StandardCharsets.US_ASCII))) {
+            return "Checkpoint at " + checkpoint.getEntryCount() + " has an invalid signature";
+        }
+        if (!checkpoint.getTransactionHash().equals(entry.getTransactionHash())
+                || !LedgerHash.transactionHash(entry).equals(entry.getTransactionHash())) {
+            return "Entry " + (checkpoint.getEntryCount() - 1) + " no longer matches its checkpoint";
+        }
+        return null;
+    }
+
+    private void recordCheckpoints(List<BlockchainTransaction> ledger, int base, int from, int verifiedUpTo) {
+        int first = (from / checkpointInterval + 1) * checkpointInterval;
+        for (int count = first; count <= verifiedUpTo; count += checkpointInterval) {
+            String hash = ledger.get(count - 1 - base).getTransactionHash();
+            ledgerStore.saveCheckpoint(new LedgerCheckpoint(count, hash, LocalDateTime.now(), sign(count, hash)));
+            logger.debug("Ledger checkpoint recorded at {} entries", count);
+        }
+    }
+
+    private String sign(int entryCount, String transactionHash) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(checkpointSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] signature = mac.doFinal((entryCount + ":" + transactionHash).getBytes(StandardCharsets.UTF_8));
+            return HashUtil.toHex(signature);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error signing ledger checkpoint", e);
+        }
+    }
+
+    private ChainVerificationDTO finish(ChainVerificationDTO result, int from, int verified, int segments,
+                                        int firstInvalid, String message, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        result.setVerifiedFrom(from);
+        result.setEntriesVerified(verified);
+        result.setSegments(segments);
+        result.setValid(firstInvalid < 0);
+        result.setFirstInvalidIndex(firstInvalid < 0 ? null : firstInvalid);
+        result.setMessage(firstInvalid < 0 ? "Ledger chain intact" : message);
+        result.setDurationMs(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        if (firstInvalid >= 0) {
+            logger.warn("Ledger verification failed at entry {}: {}", firstInvalid, message);
+        }
+        Timer.builder("blockchain.ledger.verify.chain")
+                .tag("result", firstInvalid < 0 ? "valid" : "invalid")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        return result;
+    }
+}
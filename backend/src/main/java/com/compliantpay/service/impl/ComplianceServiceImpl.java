@@ -1,50 +1,232 @@
 
 package com.compliantpay.service.impl;
 
+import com.compliantpay.model.PayrollRun;
 import com.compliantpay.model.TaxRule;
+import com.compliantpay.model.TaxRuleSnapshot;
+import com.compliantpay.repository.PayrollRunRepository;
+import com.compliantpay.repository.TaxRuleRepository;
 import com.compliantpay.service.ComplianceService;
+import com.compliantpay.service.JurisdictionRegistry;
+import com.compliantpay.util.HashUtil;
+import com.compliantpay.util.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import org.springframework.cache.annotation.Cacheable;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tax rules are stored in tax_rules and compiled into an immutable {@link TaxRuleSnapshot} that is
+ * swapped in with a single write. Every rule change bumps the version in tax_rule_version in the
+ * same transaction; instances notice through PostgreSQL NOTIFY (see TaxRuleChangeListener) or by
+ * polling the version, and recompile. The rules of every version are also written to
+ * tax_rule_snapshots in that transaction, so a run pinned to a version this instance never installed
+ * (it started later, or restarted) loads the version from there. Superseded snapshots stay in memory
+ * while unfinished payroll runs are pinned to them, plus a few more.
+ */
 @Service
 public class ComplianceServiceImpl implements ComplianceService {
     
-    // Mock tax rules data - in production this would come from database
-    private final Map<String, List<TaxRule>> taxRulesCache = new HashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(ComplianceServiceImpl.class);
+    
+    public static final String RULES_CHANGED_CHANNEL = "tax_rules_changed";
+    
+    private static final String VERSION_SQL = "SELECT version FROM tax_rule_version WHERE id = 1";
+    private static final String LOCK_VERSION_SQL = VERSION_SQL + " FOR UPDATE";
+    private static final String BUMP_VERSION_SQL = "UPDATE tax_rule_version SET version = version + 1, updated_at = ? WHERE id = 1";
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO tax_rule_snapshots (version, rules_hash, rules, created_at) VALUES (?, ?, ?, ?)";
+    private static final String SNAPSHOT_SQL = "SELECT rules_hash, rules FROM tax_rule_snapshots WHERE version = ?";
+    private static final String SNAPSHOT_HASH_SQL = "SELECT rules_hash FROM tax_rule_snapshots WHERE version = ?";
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+    private static final String TAX_CALCULATION_CACHE = "taxCalculation";
+    // Runs in these states may still compute or certify with the version they were pinned to
+    private static final Set<PayrollRun.PayrollStatus> UNFINISHED_RUN_STATUSES = EnumSet.of(
+            PayrollRun.PayrollStatus.PENDING, PayrollRun.PayrollStatus.PROCESSING, PayrollRun.PayrollStatus.COMPLETED);
+    
+    private static final String[] OPERATIONS = {"total", "breakdown"};
+    private static final int TOTAL = 0;
+    private static final int BREAKDOWN = 1;
+    
+    @Autowired
+    private JurisdictionRegistry jurisdictionRegistry;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private TaxRuleRepository taxRuleRepository;
+    
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Superseded snapshots kept beyond those unfinished payroll runs are still pinned to
+    @Value("${app.compliance.rules.retained-versions:8}")
+    private int retainedVersions;
+    
+    // Indexed by jurisdiction code so the tax hot path never hashes a String
+    private volatile TaxRuleSnapshot snapshot = new TaxRuleSnapshot(-1, "", new TaxRule[0][]);
+    private final ConcurrentSkipListMap<Long, TaxRuleSnapshot> previousSnapshots = new ConcurrentSkipListMap<>();
+    private final ReentrantLock reloadLock = new ReentrantLock();
     
-    public ComplianceServiceImpl() {
-        initializeMockTaxRules();
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate snapshotReadTemplate;
+    private boolean notifySupported;
+    
+    // Calculation timers by jurisdiction code; only jurisdictions with rules get their own tag
+    private volatile Timer[][] taxTimers = new Timer[0][];
+    private Timer[] unknownJurisdictionTimers;
+    
+    @PostConstruct
+    public void init() {
+        unknownJurisdictionTimers = taxTimersFor("unknown");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Version and rules must come from the same database snapshot
+        snapshotReadTemplate = new TransactionTemplate(transactionManager);
+        snapshotReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        notifySupported = "PostgreSQL".equalsIgnoreCase(product);
+        seedDefaultRules();
+        reloadRules();
     }
     
     @Override
-        @Cacheable("taxCalculation")
+        @Cacheable(TAX_CALCULATION_CACHE)
         public BigDecimal calculateTax(String jurisdiction, BigDecimal annualIncome) {
-            List<TaxRule> rules = getTaxRulesForJurisdiction(jurisdiction);
+            return calculateTax(jurisdictionRegistry.lookup(jurisdiction), annualIncome);
+    }
+    
+    @Override
+    public BigDecimal calculateTax(int jurisdictionCode, BigDecimal annualIncome) {
+        long start = System.nanoTime();
+        try {
+            return computeTax(snapshot, jurisdictionCode, annualIncome);
+        } finally {
+            taxTimer(jurisdictionCode, TOTAL).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private BigDecimal computeTax(TaxRuleSnapshot ruleSnapshot, int jurisdictionCode, BigDecimal annualIncome) {
+        TaxRule[] rules = ruleSnapshot.rulesFor(jurisdictionCode);
         BigDecimal totalTax = BigDecimal.ZERO;
         
         for (TaxRule rule : rules) {
-            if (rule.getIsActive() && isRuleApplicable(rule, annualIncome)) {
-                if (rule.getTaxRate() != null) {
-                    BigDecimal taxableAmount = calculateTaxableAmount(rule, annualIncome);
-                    totalTax = totalTax.add(taxableAmount.multiply(rule.getTaxRate()));
-                }
-                if (rule.getFixedAmount() != null) {
-                    totalTax = totalTax.add(rule.getFixedAmount());
-                }
+            BigDecimal ruleTax = calculateRuleTax(rule, annualIncome);
+            if (ruleTax != null) {
+                totalTax = totalTax.add(ruleTax);
             }
         }
         
         return totalTax.setScale(2, RoundingMode.HALF_UP);
     }
     
-    private List<TaxRule> getTaxRulesForJurisdiction(String jurisdiction) {
-           // In production, this should query TaxRuleRepository with caching
-           return taxRulesCache.getOrDefault(jurisdiction, List.of());
+    @Override
+    public Map<String, BigDecimal> calculateTaxBreakdown(int jurisdictionCode, BigDecimal annualIncome) {
+        return calculateTaxBreakdown(snapshot, jurisdictionCode, annualIncome);
+    }
+    
+    @Override
+    public Map<String, BigDecimal> calculateTaxBreakdown(TaxRuleSnapshot rules, int jurisdictionCode, BigDecimal annualIncome) {
+        long start = System.nanoTime();
+        try {
+            return computeTaxBreakdown(rules, jurisdictionCode, annualIncome);
+        } finally {
+            taxTimer(jurisdictionCode, BREAKDOWN).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private Map<String, BigDecimal> computeTaxBreakdown(TaxRuleSnapshot rules, int jurisdictionCode, BigDecimal annualIncome) {
+        // Unrounded per-rule amounts; their sum rounds to the same value as calculateTax
+        Map<String, BigDecimal> breakdown = new LinkedHashMap<>();
+        for (TaxRule rule : rules.rulesFor(jurisdictionCode)) {
+            BigDecimal ruleTax = calculateRuleTax(rule, annualIncome);
+            if (ruleTax != null) {
+                breakdown.merge(rule.getRuleName(), ruleTax, BigDecimal::add);
+            }
+        }
+        return breakdown;
+    }
+    
+    private BigDecimal calculateRuleTax(TaxRule rule, BigDecimal annualIncome) {
+        if (!rule.getIsActive() || !isRuleApplicable(rule, annualIncome)) {
+            return null;
+        }
+        BigDecimal ruleTax = BigDecimal.ZERO;
+        if (rule.getTaxRate() != null) {
+            BigDecimal taxableAmount = calculateTaxableAmount(rule, annualIncome);
+            ruleTax = ruleTax.add(taxableAmount.multiply(rule.getTaxRate()));
+        }
+        if (rule.getFixedAmount() != null) {
+            ruleTax = ruleTax.add(rule.getFixedAmount());
+        }
+        return ruleTax;
+    }
+    
+    private Timer taxTimer(int jurisdictionCode, int operation) {
+        Timer[][] timers = taxTimers;
+        if (jurisdictionCode < 0 || jurisdictionCode >= timers.length || timers[jurisdictionCode] == null) {
+            return unknownJurisdictionTimers[operation];
+        }
+        return timers[jurisdictionCode][operation];
+    }
+    
+    private Timer[] taxTimersFor(String jurisdiction) {
+        Timer[] timers = new Timer[OPERATIONS.length];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            timers[i] = Timer.builder("compliance.tax.calculation")
+                .description("Time to calculate one employee's tax")
+                .tag("jurisdiction", jurisdiction)
+                .tag("operation", OPERATIONS[i])
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        }
+        return timers;
     }
     
     private boolean isRuleApplicable(TaxRule rule, BigDecimal income) {
@@ -66,24 +248,185 @@ public class ComplianceServiceImpl implements ComplianceService {
     
     @Override
     public String getCurrentRulesHash() {
-        // Generate a hash representing the current state of compliance rules
-        // For demo purposes, return a simple hash
-        return Integer.toHexString(taxRulesCache.hashCode());
+        return snapshot.getRulesHash();
+    }
+    
+    @Override
+    public TaxRuleSnapshot getRuleSnapshot() {
+        return snapshot;
+    }
+    
+    @Override
+    public TaxRuleSnapshot getRuleSnapshot(Long version) {
+        TaxRuleSnapshot current = snapshot;
+        if (version == null || version == current.getVersion()) {
+            return current;
+        }
+        if (version > current.getVersion()) {
+            // Another instance changed the rules and this one has not caught up yet
+            reloadRules();
+            current = snapshot;
+            if (version == current.getVersion()) {
+                return current;
+            }
+        }
+        TaxRuleSnapshot previous = previousSnapshots.get(version);
+        if (previous == null) {
+            previous = loadStoredSnapshot(version);
+            previousSnapshots.putIfAbsent(version, previous);
+        }
+        return previous;
+    }
+    
+    /**
+     * Compiles a version from the rules stored with it in tax_rule_snapshots
+     */
+    private TaxRuleSnapshot loadStoredSnapshot(long version) {
+        StoredRules stored = jdbcTemplate.query(SNAPSHOT_SQL, resultSet -> {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("Tax rules version " + version + " was never stored");
+            }
+            try {
+                return new StoredRules(version, Arrays.asList(objectMapper.readValue(resultSet.getString("rules"), TaxRule[].class)),
+                        resultSet.getString("rules_hash"));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Stored tax rules version " + version + " cannot be read", e);
+            }
+        }, version);
+        Map<String, List<TaxRule>> rules = byJurisdiction(stored.rules);
+        String rulesHash = computeRulesHash(rules);
+        if (!rulesHash.equals(stored.rulesHash)) {
+            throw new IllegalStateException("Stored tax rules version " + version + " does not match its hash");
+        }
+        logger.info("Loaded stored tax rules version {}", version);
+        return new TaxRuleSnapshot(version, rulesHash, compile(rules));
+    }
+    
+    @Override
+    public boolean reloadRulesIfChanged() {
+        Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+        if (version == null || version == snapshot.getVersion()) {
+            return false;
+        }
+        reloadRules();
+        return true;
+    }
+    
+    @Override
+    public TaxRule saveTaxRule(TaxRule rule) {
+        TaxRule saved = transactionTemplate.execute(status -> {
+            // Serializes rule changes across instances; the version bump commits with the rule
+            jdbcTemplate.queryForObject(LOCK_VERSION_SQL, Long.class);
+            rule.setUpdatedAt(LocalDateTime.now());
+            TaxRule result = taxRuleRepository.save(rule);
+            bumpVersion();
+            storeSnapshot();
+            return result;
+        });
+        reloadRules();
+        return saved;
     }
     
     @Override
     public Map<String, Object> getTaxRulesForJurisdictionWithDetails(String jurisdiction) {
-        List<TaxRule> rules = getTaxRulesForJurisdiction(jurisdiction);
+        int code = jurisdictionRegistry.lookup(jurisdiction);
+        TaxRuleSnapshot current = snapshot;
+        TaxRule[] rules = current.rulesFor(code);
         
         Map<String, Object> result = new HashMap<>();
-        result.put("jurisdiction", jurisdiction);
-        result.put("rules", rules);
+        // Echo the canonical name when known; unknown input is escaped before it goes back out
+        result.put("jurisdiction", code != JurisdictionRegistry.UNKNOWN
+                ? jurisdictionRegistry.nameOf(code) : SecurityUtils.sanitize(jurisdiction));
+        result.put("rules", Arrays.asList(rules));
+        result.put("rulesVersion", current.getVersion());
         result.put("lastUpdated", java.time.LocalDateTime.now().toString());
         
         return result;
     }
     
-    private void initializeMockTaxRules() {
+    /**
+     * Writes the active rules under the current version inside the caller's transaction, after
+     * the version was bumped
+     */
+    private void storeSnapshot() {
+        taxRuleRepository.flush();
+        Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+        List<TaxRule> rules = taxRuleRepository.findByIsActiveTrueOrderByJurisdictionAscMinIncomeAscRuleNameAsc();
+        insertSnapshot(version, rules);
+    }
+    
+    private void insertSnapshot(long version, List<TaxRule> rules) {
+        try {
+            jdbcTemplate.update(INSERT_SNAPSHOT_SQL, version, computeRulesHash(byJurisdiction(rules)),
+                    objectMapper.writeValueAsString(rules), LocalDateTime.now());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Tax rules version " + version + " cannot be serialized", e);
+        }
+    }
+    
+    /**
+     * Bumps the rule version inside the caller's transaction; listeners are notified on commit
+     */
+    private void bumpVersion() {
+        jdbcTemplate.update(BUMP_VERSION_SQL, LocalDateTime.now());
+        if (notifySupported) {
+            Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+            jdbcTemplate.query(NOTIFY_SQL, (ResultSetExtractor<Void>) resultSet -> null,
+                    RULES_CHANGED_CHANNEL, String.valueOf(version));
+        }
+    }
+    
+    /**
+     * Stores the built-in rules on first start. The version row lock keeps instances starting
+     * together from seeding twice.
+     */
+    private void seedDefaultRules() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject(LOCK_VERSION_SQL, Long.class);
+            if (taxRuleRepository.count() > 0) {
+                return;
+            }
+            List<TaxRule> defaults = new ArrayList<>();
+            defaultTaxRules().values().forEach(defaults::addAll);
+            taxRuleRepository.saveAll(defaults);
+            bumpVersion();
+            storeSnapshot();
+            logger.info("Seeded {} default tax rules", defaults.size());
+        });
+    }
+    
+    /**
+     * Compiles the rules stored at the current version and swaps them in, unless that version is
+     * already installed
+     */
+    private void reloadRules() {
+        reloadLock.lock();
+        try {
+            StoredRules stored = snapshotReadTemplate.execute(status -> {
+                long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+                List<String> storedHash = jdbcTemplate.queryForList(SNAPSHOT_HASH_SQL, String.class, version);
+                return new StoredRules(version,
+                    taxRuleRepository.findByIsActiveTrueOrderByJurisdictionAscMinIncomeAscRuleNameAsc(),
+                    storedHash.isEmpty() ? null : storedHash.get(0));
+            });
+            if (stored.version == snapshot.getVersion()) {
+                return;
+            }
+            if (stored.rulesHash == null) {
+                // Version written before snapshots were stored alongside it
+                try {
+                    insertSnapshot(stored.version, stored.rules);
+                } catch (DuplicateKeyException e) {
+                    // another instance stored it first
+                }
+            }
+            installRules(stored.version, byJurisdiction(stored.rules));
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    private Map<String, List<TaxRule>> defaultTaxRules() {
         // USA - California rules
         List<TaxRule> caRules = List.of(
             createTaxRule("USA - California", "Bracket 1", 0, 9325, new BigDecimal("0.01")),
@@ -94,7 +437,8 @@ public class ComplianceServiceImpl implements ComplianceService {
             createTaxRule("USA - California", "Bracket 6", 61215, 312686, new BigDecimal("0.093")),
             createTaxRule("USA - California", "SDI Tax", 0, null, new BigDecimal("0.011"))
         );
-        taxRulesCache.put("USA - California", caRules);
+        Map<String, List<TaxRule>> rules = new HashMap<>();
+        rules.put("USA - California", caRules);
         
         // Canada - Ontario rules
         List<TaxRule> onRules = List.of(
@@ -104,7 +448,7 @@ public class ComplianceServiceImpl implements ComplianceService {
             createTaxRule("Canada - Ontario", "Bracket 4", 150001, 220000, new BigDecimal("0.1216")),
             createTaxRule("Canada - Ontario", "Bracket 5", 220001, null, new BigDecimal("0.1316"))
         );
-        taxRulesCache.put("Canada - Ontario", onRules);
+        rules.put("Canada - Ontario", onRules);
         
         // India - Tamil Nadu rules
         List<TaxRule> tnRules = List.of(
@@ -113,7 +457,93 @@ public class ComplianceServiceImpl implements ComplianceService {
             createTaxRule("India - Tamil Nadu", "Bracket 2", 500001, 1000000, new BigDecimal("0.20")),
             createTaxRule("India - Tamil Nadu", "Bracket 3", 1000001, null, new BigDecimal("0.30"))
         );
-        taxRulesCache.put("India - Tamil Nadu", tnRules);
+        rules.put("India - Tamil Nadu", tnRules);
+        
+        return rules;
+    }
+    
+    private static Map<String, List<TaxRule>> byJurisdiction(List<TaxRule> rules) {
+        Map<String, List<TaxRule>> byJurisdiction = new LinkedHashMap<>();
+        for (TaxRule rule : rules) {
+            byJurisdiction.computeIfAbsent(rule.getJurisdiction(), j -> new ArrayList<>()).add(rule);
+        }
+        return byJurisdiction;
+    }
+    
+    // Rule table indexed by jurisdiction code
+    private TaxRule[][] compile(Map<String, List<TaxRule>> rules) {
+        TaxRule[][] table = new TaxRule[0][];
+        for (Map.Entry<String, List<TaxRule>> entry : rules.entrySet()) {
+            int code = jurisdictionRegistry.intern(entry.getKey());
+            if (code >= table.length) {
+                table = Arrays.copyOf(table, code + 1);
+            }
+            table[code] = entry.getValue().toArray(new TaxRule[0]);
+        }
+        return table;
+    }
+    
+    private void installRules(long version, Map<String, List<TaxRule>> rules) {
+        TaxRule[][] table = compile(rules);
+        Timer[][] timers = new Timer[table.length][];
+        for (int code = 0; code < table.length; code++) {
+            if (table[code] != null) {
+                timers[code] = taxTimersFor(jurisdictionRegistry.nameOf(code));
+            }
+        }
+        TaxRuleSnapshot previous = snapshot;
+        TaxRuleSnapshot next = new TaxRuleSnapshot(version, computeRulesHash(rules), table);
+        if (previous.getVersion() >= 0) {
+            previousSnapshots.put(previous.getVersion(), previous);
+            trimPreviousSnapshots();
+        }
+        taxTimers = timers;
+        snapshot = next;
+        // Cached results were computed with the previous rules
+        Cache cache = cacheManager.getCache(TAX_CALCULATION_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+        logger.info("Installed tax rules version {} ({} jurisdictions, hash {})", version, rules.size(), next.getRulesHash());
+    }
+    
+    /**
+     * Drops the oldest superseded snapshots beyond the retained count, never one an unfinished
+     * payroll run is pinned to
+     */
+    private void trimPreviousSnapshots() {
+        int excess = previousSnapshots.size() - retainedVersions;
+        if (excess <= 0) {
+            return;
+        }
+        Set<Long> pinned = new HashSet<>(payrollRunRepository.findRulesVersionsByStatusIn(UNFINISHED_RUN_STATUSES));
+        Iterator<Long> versions = previousSnapshots.keySet().iterator();
+        while (excess > 0 && versions.hasNext()) {
+            if (!pinned.contains(versions.next())) {
+                versions.remove();
+                excess--;
+            }
+        }
+    }
+    
+    /**
+     * Full SHA-256 of the rules: delta runs reuse a certified run's results whenever its hash
+     * matches, so a collision would carry results over from different rules
+     */
+    private String computeRulesHash(Map<String, List<TaxRule>> rules) {
+        StringBuilder canonical = new StringBuilder();
+        rules.keySet().stream().sorted().forEach(jurisdiction -> {
+            for (TaxRule rule : rules.get(jurisdiction)) {
+                canonical.append(jurisdiction).append('|')
+                        .append(rule.getRuleName()).append('|')
+                        .append(rule.getMinIncome()).append('|')
+                        .append(rule.getMaxIncome()).append('|')
+                        .append(rule.getTaxRate()).append('|')
+                        .append(rule.getFixedAmount()).append('|')
+                        .append(rule.getIsActive()).append('\n');
+            }
+        });
+        return HashUtil.generateSHA256Hash(canonical.toString());
     }
     
     private TaxRule createTaxRule(String jurisdiction, String name, 
@@ -130,4 +560,17 @@ public class ComplianceServiceImpl implements ComplianceService {
         rule.setIsActive(true);
         return rule;
     }
-}
\ No newline at end of file
+    
+    private static class StoredRules {
+        private final long version;
+        private final List<TaxRule> rules;
+        // Hash stored in tax_rule_snapshots, null when the version has no stored snapshot yet
+        private final String rulesHash;
+        
+        StoredRules(long version, List<TaxRule> rules, String rulesHash) {
+            this.version = version;
+            this.rules = rules;
+            this.rulesHash = rulesHash;
+        }
+    }
+}
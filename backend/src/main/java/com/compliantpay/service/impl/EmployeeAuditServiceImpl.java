@@ -0,0 +1,155 @@
+package com.compliantpay.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.compliantpay.event.EmployeeChangedEvent;
+import com.compliantpay.model.Employee;
+import com.compliantpay.model.EmployeeAuditEntry;
+import com.compliantpay.service.BlockchainService;
+import com.compliantpay.service.EmployeeAuditService;
+import com.compliantpay.util.HashUtil;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind audit trail for employee changes. Committed changes are captured into a bounded
+ * ring buffer on the request thread; a single writer thread drains it, hashes the entries and
+ * appends them to the ledger in batches. If the buffer is full the change is appended on the
+ * request thread instead, so no change goes unaudited. A batch the ledger rejects is retried with
+ * backoff until it is appended.
+ *
+ * Entries carry a hash of the changed employee fields rather than the fields themselves, so names
+ * and salaries never reach the ledger.
+ */
+@Service
+public class EmployeeAuditServiceImpl implements EmployeeAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeAuditServiceImpl.class);
+
+    private static final long INITIAL_RETRY_DELAY_MS = 100;
+    private static final long MAX_RETRY_DELAY_MS = 30000;
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.buffer-capacity:4096}")
+    private int bufferCapacity;
+
+    @Value("${app.audit.batch-size:256}")
+    private int batchSize;
+
+    private BlockingQueue<EmployeeAuditEntry> buffer;
+    private Thread writer;
+    private Counter overflowCounter;
+    private volatile boolean running;
+    // The batch the writer was still retrying when it stopped
+    private volatile List<EmployeeAuditEntry> unwritten = List.of();
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        Gauge.builder("audit.employee.pending", buffer, BlockingQueue::size)
+            .description("Employee changes waiting to be appended to the ledger")
+            .register(meterRegistry);
+        overflowCounter = Counter.builder("audit.employee.overflow")
+            .description("Employee changes appended on the request thread because the buffer was full")
+            .register(meterRegistry);
+        running = true;
+        writer = new Thread(this::drainLoop, "employee-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        // Whatever the writer did not get to is appended here so shutdown loses nothing
+        List<EmployeeAuditEntry> remaining = new ArrayList<>(unwritten);
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            blockchainService.recordEmployeeTransactions(remaining);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        EmployeeAuditEntry entry = toEntry(event);
+        if (!buffer.offer(entry)) {
+            overflowCounter.increment();
+            logger.warn("Audit buffer full, recording change to {} synchronously", entry.getEmployeeId());
+            blockchainService.recordEmployeeTransaction(entry.getTransactionType(), entry.getEmployeeId(), entry.getDetails());
+        }
+    }
+
+    @Override
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    private void drainLoop() {
+        List<EmployeeAuditEntry> batch = new ArrayList<>(batchSize);
+        long retryDelayMs = 0;
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    EmployeeAuditEntry first = buffer.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                } else {
+                    // The failed batch goes again as it was, ahead of anything buffered since
+                    Thread.sleep(retryDelayMs);
+                }
+                blockchainService.recordEmployeeTransactions(batch);
+                logger.debug("Appended {} employee changes to the ledger", batch.size());
+                batch.clear();
+                retryDelayMs = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                retryDelayMs = retryDelayMs == 0 ? INITIAL_RETRY_DELAY_MS : Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+                logger.error("Failed to append {} employee changes to the ledger, retrying in {} ms",
+                    batch.size(), retryDelayMs, e);
+            }
+        }
+        unwritten = batch;
+    }
+
+    private static EmployeeAuditEntry toEntry(EmployeeChangedEvent event) {
+        Employee employee = event.getEmployee();
+        String payload = String.join("|", employee.getEmployeeId(), employee.getFirstName(),
+            employee.getLastName(), employee.getDepartment(), employee.getLocation(),
+            String.valueOf(employee.getSalary()), employee.getBenefitPlan());
+        String details = event.getChangeType() + " payloadHash=" + HashUtil.generateSHA256Hash(payload);
+        return new EmployeeAuditEntry("EMPLOYEE_" + event.getChangeType().name(), employee.getEmployeeId(), details);
+    }
+}
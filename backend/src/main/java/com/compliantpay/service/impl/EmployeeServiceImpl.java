@@ -1,10 +1,14 @@
 package com.compliantpay.service.impl;
 
+import com.compliantpay.event.EmployeeChangedEvent;
 import com.compliantpay.model.Employee;
 import com.compliantpay.repository.EmployeeRepository;
 import com.compliantpay.service.EmployeeService;
+import com.compliantpay.service.JurisdictionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -18,17 +22,26 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Autowired
     private EmployeeRepository employeeRepository;
     
+    @Autowired
+    private JurisdictionRegistry jurisdictionRegistry;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
         return employeeRepository.findByIsActiveTrue();
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Optional<Employee> getEmployeeById(UUID id) {
         return employeeRepository.findById(id);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Optional<Employee> getEmployeeByEmployeeId(String employeeId) {
         return employeeRepository.findByEmployeeId(employeeId);
     }
@@ -50,7 +63,10 @@ public class EmployeeServiceImpl implements EmployeeService {
             throw new IllegalArgumentException("Email already exists: " + employee.getEmail());
         }
         
-        return employeeRepository.save(employee);
+        employee.setJurisdictionCode(jurisdictionRegistry.intern(employee.getLocation()));
+        Employee saved = employeeRepository.save(employee);
+        eventPublisher.publishEvent(new EmployeeChangedEvent(EmployeeChangedEvent.ChangeType.CREATED, saved));
+        return saved;
     }
     
     @Override
@@ -63,8 +79,11 @@ public class EmployeeServiceImpl implements EmployeeService {
                 employee.setSalary(employeeDetails.getSalary());
                 employee.setBenefitPlan(employeeDetails.getBenefitPlan());
                 employee.setLocation(employeeDetails.getLocation());
+                employee.setJurisdictionCode(jurisdictionRegistry.intern(employeeDetails.getLocation()));
                 employee.setEmail(employeeDetails.getEmail());
-                return employeeRepository.save(employee);
+                Employee saved = employeeRepository.save(employee);
+                eventPublisher.publishEvent(new EmployeeChangedEvent(EmployeeChangedEvent.ChangeType.UPDATED, saved));
+                return saved;
             })
             .orElseThrow(() -> new RuntimeException("Employee not found with id: " + id));
     }
@@ -74,16 +93,19 @@ public class EmployeeServiceImpl implements EmployeeService {
         Employee employee = employeeRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Employee not found with id: " + id));
         employee.setIsActive(false);
-        employeeRepository.save(employee);
+        Employee saved = employeeRepository.save(employee);
+        eventPublisher.publishEvent(new EmployeeChangedEvent(EmployeeChangedEvent.ChangeType.DEACTIVATED, saved));
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByDepartment(String department) {
         return employeeRepository.findByDepartment(department);
     }
     
     @Override
     public BigDecimal getTotalMonthlySalary() {
+        // Summed by the database: the snapshot of this instance may lag changes made on others
         return employeeRepository.findTotalMonthlySalary()
             .orElse(BigDecimal.ZERO)
             .divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP);
@@ -0,0 +1,127 @@
+package com.compliantpay.service.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.compliantpay.model.Jurisdiction;
+import com.compliantpay.repository.JurisdictionRepository;
+import com.compliantpay.service.JurisdictionRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Interns free-text jurisdiction names into small integer codes backed by the jurisdictions table.
+ * Lookups after startup are served from memory; only unseen names touch the database. A new name
+ * is inserted in its own transaction, so the code is only cached once its row is committed, even
+ * when the caller's transaction rolls back.
+ */
+@Service
+public class JurisdictionRegistryImpl implements JurisdictionRegistry {
+
+    @Autowired
+    private JurisdictionRepository jurisdictionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    // Not synchronized: inserting an unseen name blocks on the database, which would pin a virtual thread
+    private final ReentrantLock registrationLock = new ReentrantLock();
+
+    @PostConstruct
+    public void load() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (Jurisdiction jurisdiction : jurisdictionRepository.findAll()) {
+            register(jurisdiction);
+        }
+    }
+
+    @Override
+    public int intern(String jurisdiction) {
+        String key = normalize(jurisdiction);
+        if (key == null) {
+            return UNKNOWN;
+        }
+        Integer code = codes.get(key);
+        if (code != null) {
+            return code;
+        }
+        registrationLock.lock();
+        try {
+            code = codes.get(key);
+            if (code != null) {
+                return code;
+            }
+            Jurisdiction stored = jurisdictionRepository.findByName(key).orElseGet(() -> insert(key));
+            return register(stored);
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    @Override
+    public int lookup(String jurisdiction) {
+        String key = normalize(jurisdiction);
+        if (key == null) {
+            return UNKNOWN;
+        }
+        return codes.getOrDefault(key, UNKNOWN);
+    }
+
+    @Override
+    public String nameOf(int code) {
+        String[] current = names;
+        return code >= 0 && code < current.length ? current[code] : null;
+    }
+
+    @Override
+    public int codeLimit() {
+        return names.length;
+    }
+
+    private Jurisdiction insert(String name) {
+        try {
+            return requiresNew.execute(status -> jurisdictionRepository.save(new Jurisdiction(name)));
+        } catch (DataIntegrityViolationException e) {
+            // Another node registered the same name first
+            return requiresNew.execute(status -> jurisdictionRepository.findByName(name)).orElseThrow(() -> e);
+        }
+    }
+
+    private int register(Jurisdiction jurisdiction) {
+        registrationLock.lock();
+        try {
+            int code = jurisdiction.getId();
+            String[] current = names;
+            if (code >= current.length) {
+                current = Arrays.copyOf(current, Math.max(code + 1, current.length * 2));
+            }
+            current[code] = jurisdiction.getName();
+            names = current;
+            codes.put(jurisdiction.getName(), code);
+            return code;
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    private static String normalize(String jurisdiction) {
+        if (jurisdiction == null) {
+            return null;
+        }
+        String trimmed = jurisdiction.trim().replaceAll("\\s+", " ");
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -1,133 +1,317 @@
 package com.compliantpay.service.impl;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.compliantpay.model.Employee;
 import com.compliantpay.model.PayrollRequest;
 import com.compliantpay.model.PayrollRun;
-import com.compliantpay.repository.EmployeeRepository;
+import com.compliantpay.model.PayslipLine;
+import com.compliantpay.model.TaxRuleSnapshot;
+import com.compliantpay.payroll.DistributedPayrollRunner;
+import com.compliantpay.payroll.PayrollCertifier;
+import com.compliantpay.payroll.PayrollPipeline;
 import com.compliantpay.repository.PayrollRunRepository;
-import com.compliantpay.service.BlockchainService;
+import com.compliantpay.repository.PayslipLineRepository;
 import com.compliantpay.service.ComplianceService;
 import com.compliantpay.service.PayrollService;
+import com.compliantpay.util.HashUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class PayrollServiceImpl implements PayrollService {
     
-    @Autowired
-    private EmployeeRepository employeeRepository;
+    private static final Logger logger = LoggerFactory.getLogger(PayrollServiceImpl.class);
+    
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
     
     @Autowired
     private PayrollRunRepository payrollRunRepository;
     
+    @Autowired
+    private PayslipLineRepository payslipLineRepository;
+    
+    @Autowired
+    private PayrollPipeline payrollPipeline;
+    
+    @Autowired
+    private PayrollCertifier payrollCertifier;
+    
+    @Autowired
+    private DistributedPayrollRunner distributedRunner;
+    
     @Autowired
     private ComplianceService complianceService;
     
     @Autowired
-    private BlockchainService blockchainService;
+    private MeterRegistry meterRegistry;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
-    @Transactional
+    @Value("${app.payroll.idempotency.processing-timeout-minutes:30}")
+    private long processingTimeoutMinutes;
+    
+    // Runs currently executing on this instance, by owner and idempotency key
+    private final ConcurrentMap<String, CompletableFuture<PayrollRun>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * Requests carrying an idempotency key are deduplicated per user: a duplicate that arrives
+     * while the first is still running waits for and shares its result, and one that arrives
+     * afterwards gets the stored run back, provided it carries the same request. Only runs that
+     * failed, or that stayed PROCESSING past the processing timeout, can be retried under the
+     * same key.
+     */
     @Override
-    public PayrollRun processPayroll(PayrollRequest request) {
-        // Validate employees
-        List<Employee> employees = employeeRepository.findAllById(request.getEmployeeIds());
-        if (employees.isEmpty()) {
-            throw new RuntimeException("No valid employees found for payroll processing");
+    public PayrollRun processPayroll(PayrollRequest request, String requestedBy) {
+        String key = normalizeKey(request.getIdempotencyKey());
+        if (key == null) {
+            return executePayroll(request, null, null);
         }
+        String owner = requestedBy != null ? requestedBy : "anonymous";
         
-        // Calculate total payroll
-        BigDecimal totalAmount = calculateTotalPayroll(employees);
+        CompletableFuture<PayrollRun> claim = new CompletableFuture<>();
+        String flightKey = owner + "\n" + key;
+        CompletableFuture<PayrollRun> running = inFlight.putIfAbsent(flightKey, claim);
+        if (running != null) {
+            logger.info("Payroll request with idempotency key {} joined the run in flight", key);
+            return await(running, request);
+        }
         
-        // Create payroll run record
+        try {
+            Optional<PayrollRun> previous = payrollRunRepository.findByIdempotencyOwnerAndIdempotencyKey(owner, key);
+            if (previous.isPresent() && releaseIfStale(previous.get())) {
+                // Whatever the release found, the stored state is now the one to follow
+                previous = payrollRunRepository.findByIdempotencyOwnerAndIdempotencyKey(owner, key);
+            }
+            PayrollRun result = previous
+                .map(run -> replay(run, request))
+                .orElseGet(() -> executePayroll(request, owner, key));
+            claim.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            claim.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, claim);
+        }
+    }
+    
+    /**
+     * Fails a run that is still PROCESSING past the processing timeout, releasing its key. It
+     * is not in flight here, so the instance that ran it died or lost it.
+     *
+     * @return whether the run was stale
+     */
+    private boolean releaseIfStale(PayrollRun run) {
+        if (run.getStatus() != PayrollRun.PayrollStatus.PROCESSING
+                || !run.getCreatedAt().isBefore(LocalDateTime.now().minusMinutes(processingTimeoutMinutes))) {
+            return false;
+        }
+        if (payrollRunRepository.fail(run.getId(), PayrollRun.PayrollStatus.PROCESSING, PayrollRun.PayrollStatus.FAILED) > 0) {
+            logger.warn("Payroll run {} was still PROCESSING after {} minutes; failed it and released key {}",
+                run.getId(), processingTimeoutMinutes, run.getIdempotencyKey());
+        }
+        return true;
+    }
+    
+    // Not @Transactional: pipeline stages run on their own threads and commit per chunk,
+    // and the FAILED status below has to survive the exception that follows it
+    private PayrollRun executePayroll(PayrollRequest request, String idempotencyOwner, String idempotencyKey) {
+        if (request.getEmployeeIds() == null || request.getEmployeeIds().isEmpty()) {
+            throw new RuntimeException("No valid employees found for payroll processing");
+        }
+        
+        // Create payroll run record; totals are filled in once the pipeline has drained
         PayrollRun payrollRun = new PayrollRun(
             request.getPayPeriod(),
-            totalAmount,
-            employees.size()
+            BigDecimal.ZERO,
+            0
         );
         payrollRun.setStatus(PayrollRun.PayrollStatus.PROCESSING);
+        payrollRun.setIdempotencyKey(idempotencyKey);
+        if (idempotencyKey != null) {
+            payrollRun.setIdempotencyOwner(idempotencyOwner);
+            payrollRun.setRequestHash(requestHash(request));
+        }
+        // Pin the rule version; every chunk of the run, on any instance, computes with it
+        TaxRuleSnapshot rules = complianceService.getRuleSnapshot();
+        payrollRun.setRulesVersion(rules.getVersion());
+        payrollRun.setComplianceRulesHash(rules.getRulesHash());
+        
+        boolean delta = Boolean.TRUE.equals(request.getDeltaMode());
+        long start = System.nanoTime();
+        PayrollRun savedPayroll;
+        try {
+            savedPayroll = payrollRunRepository.save(payrollRun);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance claimed the key between our lookup and insert
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            return payrollRunRepository.findByIdempotencyOwnerAndIdempotencyKey(idempotencyOwner, idempotencyKey)
+                .map(previous -> replay(previous, request))
+                .orElseThrow(() -> e);
+        }
         
-        PayrollRun savedPayroll = payrollRunRepository.save(payrollRun);
+        if (distributedRunner.isEnabled() && !delta) {
+            return executeDistributed(savedPayroll, request, start);
+        }
         
         try {
-            // Calculate taxes and deductions for each employee
-            Map<UUID, BigDecimal> taxCalculations = calculateTaxes(employees);
-            
-            // Generate payroll data hash for blockchain
-            String payrollDataHash = generatePayrollDataHash(employees, taxCalculations);
-            
-            // Record on blockchain
-            String txHash = blockchainService.recordPayrollTransaction(
-                savedPayroll.getId().toString(),
-                request.getPayPeriod(),
-                totalAmount,
-                payrollDataHash
-            );
+            // Fetch, calculate taxes, hash and persist chunk by chunk
+            PayrollPipeline.Result result = payrollPipeline.run(savedPayroll, request.getEmployeeIds(), delta);
+            if (result.getEmployeeCount() == 0) {
+                throw new RuntimeException("No valid employees found for payroll processing");
+            }
             
-            // Update payroll run with blockchain info
-            savedPayroll.setBlockchainTxHash(txHash);
-            savedPayroll.setComplianceRulesHash(complianceService.getCurrentRulesHash());
-            savedPayroll.setStatus(PayrollRun.PayrollStatus.CERTIFIED);
-            savedPayroll.setProcessedAt(LocalDateTime.now());
-            
-            return payrollRunRepository.save(savedPayroll);
+            // Record on blockchain, anchor remotely and mark certified
+            PayrollRun certified = payrollCertifier.certify(savedPayroll, result);
+            recordRun("certified", delta, start);
+            return certified;
             
         } catch (Exception e) {
             savedPayroll.setStatus(PayrollRun.PayrollStatus.FAILED);
+            // Release the key so the client can retry the same request
+            savedPayroll.setIdempotencyKey(null);
             payrollRunRepository.save(savedPayroll);
+            recordRun("failed", delta, start);
             throw new RuntimeException("Payroll processing failed: " + e.getMessage(), e);
         }
     }
     
-    private BigDecimal calculateTotalPayroll(List<Employee> employees) {
-        return employees.stream()
-            .map(Employee::getSalary)
-            .reduce(BigDecimal.ZERO, BigDecimal::add)
-            .divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP); // Monthly amount
+    /**
+     * Hands the run to the instances polling payroll_chunks, this one included. The run's status
+     * is kept by whoever finishes it, so failures are read back rather than written here.
+     */
+    private PayrollRun executeDistributed(PayrollRun savedPayroll, PayrollRequest request, long start) {
+        PayrollRun finished;
+        try {
+            finished = distributedRunner.run(savedPayroll, request.getEmployeeIds());
+        } catch (RuntimeException e) {
+            // No-op if the run already failed elsewhere; otherwise releases the idempotency key
+            payrollRunRepository.fail(savedPayroll.getId(), PayrollRun.PayrollStatus.PROCESSING, PayrollRun.PayrollStatus.FAILED);
+            recordRun("failed", false, start);
+            throw new RuntimeException("Payroll processing failed: " + e.getMessage(), e);
+        }
+        if (finished.getStatus() != PayrollRun.PayrollStatus.CERTIFIED) {
+            recordRun("failed", false, start);
+            throw new RuntimeException("Payroll processing failed: run " + finished.getId() + " ended as " + finished.getStatus());
+        }
+        recordRun("certified", false, start);
+        return finished;
     }
     
-    private Map<UUID, BigDecimal> calculateTaxes(List<Employee> employees) {
-        Map<UUID, BigDecimal> taxResults = new HashMap<>();
-        
-        for (Employee employee : employees) {
-            BigDecimal annualSalary = employee.getSalary();
-            BigDecimal taxAmount = complianceService.calculateTax(employee.getLocation(), annualSalary);
-            taxResults.put(employee.getId(), taxAmount);
+    private void recordRun(String outcome, boolean delta, long startNanos) {
+        Timer.builder("payroll.run")
+            .description("End-to-end time of a payroll run, anchoring included")
+            .tag("outcome", outcome)
+            .tag("mode", delta ? "delta" : "full")
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private PayrollRun replay(PayrollRun previous, PayrollRequest request) {
+        // Runs stored before request hashes were kept can only be checked on their pay period
+        boolean sameRequest = previous.getRequestHash() != null
+            ? previous.getRequestHash().equals(requestHash(request))
+            : previous.getPayPeriod().equals(request.getPayPeriod());
+        if (!sameRequest) {
+            throw new RuntimeException("Idempotency key was already used with a different request (pay period "
+                + previous.getPayPeriod() + ")");
         }
-        
-        return taxResults;
+        logger.info("Payroll request with idempotency key {} returned existing run {}",
+            previous.getIdempotencyKey(), previous.getId());
+        return previous;
     }
     
-    private String generatePayrollDataHash(List<Employee> employees, Map<UUID, BigDecimal> taxCalculations) {
-        // Simple hash generation for demo - in production use proper cryptographic hash
-        StringBuilder dataBuilder = new StringBuilder();
-        
-        for (Employee employee : employees) {
-            dataBuilder.append(employee.getEmployeeId())
-                      .append(employee.getSalary())
-                      .append(taxCalculations.get(employee.getId()));
+    /**
+     * SHA-256 over every request parameter that affects the run. Employee ids are sorted, so
+     * listing the same employees in another order is the same request.
+     */
+    private static String requestHash(PayrollRequest request) {
+        List<UUID> ids = request.getEmployeeIds() != null ? request.getEmployeeIds() : List.of();
+        String canonical = String.join("\n",
+            request.getPayPeriod(),
+            ids.stream().map(UUID::toString).sorted().collect(Collectors.joining(",")),
+            String.valueOf(Boolean.TRUE.equals(request.getDeltaMode())),
+            String.valueOf(Boolean.TRUE.equals(request.getIncludeBenefits())),
+            String.valueOf(Boolean.TRUE.equals(request.getProcessPayments())));
+        return HashUtil.generateSHA256Hash(canonical);
+    }
+    
+    private PayrollRun await(CompletableFuture<PayrollRun> running, PayrollRequest request) {
+        try {
+            return replay(running.join(), request);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
         }
-        
-        return Integer.toHexString(dataBuilder.toString().hashCode());
+    }
+    
+    private static String normalizeKey(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        String trimmed = key.trim();
+        if (trimmed.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency key must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        return trimmed;
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<PayrollRun> getPayrollHistory() {
         return payrollRunRepository.findAllByOrderByRunDateDesc();
     }
     
     @Override
+    @Transactional(readOnly = true)
+    public void forEachPayrollRun(Consumer<PayrollRun> action) {
+        try (Stream<PayrollRun> runs = payrollRunRepository.streamAllByOrderByRunDateDesc()) {
+            runs.forEach(run -> {
+                action.accept(run);
+                // Keeps the persistence context from holding every run read so far
+                entityManager.detach(run);
+            });
+        }
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
     public Optional<PayrollRun> getPayrollRun(UUID id) {
         return payrollRunRepository.findById(id);
     }
-}
\ No newline at end of file
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<PayslipLine> getPayslipLines(UUID runId) {
+        return payslipLineRepository.findByRunIdOrderByIdAsc(runId);
+    }
+}
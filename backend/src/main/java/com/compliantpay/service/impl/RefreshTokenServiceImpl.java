@@ -0,0 +1,128 @@
+package com.compliantpay.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import com.compliantpay.model.RefreshToken;
+import com.compliantpay.repository.RefreshTokenRepository;
+import com.compliantpay.service.RefreshTokenService;
+import com.compliantpay.util.HashUtil;
+
+/**
+ * Rotating refresh tokens. Tokens are 256 random bits handed to the client once; the database only
+ * keeps their HMAC-SHA256, looked up through a unique index, so renewing a session costs one
+ * HMAC and one indexed read instead of a BCrypt check. Revoked families are also held in memory,
+ * so a row read just before a concurrent revocation committed is still refused.
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${app.jwt.refresh-expiration-ms:1209600000}")
+    private long refreshExpirationMs;
+
+    @Value("${app.jwt.refresh-secret:${app.jwt.secret}}")
+    private String refreshSecret;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Families revoked by logout or replay; cleared of expired families by the purge job
+    private final Set<UUID> revokedFamilies = ConcurrentHashMap.newKeySet();
+
+    private final ThreadLocal<Mac> hmac = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(refreshSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error initializing refresh token HMAC", e);
+        }
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevokedFamilies() {
+        revokedFamilies.addAll(refreshTokenRepository.findRevokedFamilies(LocalDateTime.now()));
+        logger.info("Loaded {} revoked refresh token families", revokedFamilies.size());
+    }
+
+    @Override
+    public String issue(String username) {
+        return issue(username, UUID.randomUUID());
+    }
+
+    @Override
+    public Rotation rotate(String refreshToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+            .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        if (current.isRevoked() || revokedFamilies.contains(current.getFamilyId())) {
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+        if (current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+        // Conditional update: of two concurrent refreshes with the same token only one wins
+        if (current.isUsed() || refreshTokenRepository.retire(current.getId()) == 0) {
+            logger.warn("Refresh token replayed for {}, revoking family {}", current.getUsername(), current.getFamilyId());
+            revokeFamily(current.getFamilyId());
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        return new Rotation(current.getUsername(), issue(current.getUsername(), current.getFamilyId()));
+    }
+
+    @Override
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+            .ifPresent(token -> revokeFamily(token.getFamilyId()));
+    }
+
+    @Scheduled(cron = "${app.jwt.refresh-purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        revokedFamilies.retainAll(refreshTokenRepository.findRevokedFamilies(LocalDateTime.now()));
+        logger.info("Purged {} expired refresh tokens", deleted);
+    }
+
+    private String issue(String username, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(refreshExpirationMs));
+        refreshTokenRepository.save(new RefreshToken(hash(token), username, familyId, expiresAt));
+        return token;
+    }
+
+    private void revokeFamily(UUID familyId) {
+        revokedFamilies.add(familyId);
+        refreshTokenRepository.revokeFamily(familyId);
+    }
+
+    private String hash(String token) {
+        return HashUtil.toHex(hmac.get().doFinal(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,123 @@
+package com.compliantpay.service.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.compliantpay.service.ComplianceService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps this instance on the latest tax rule version. On PostgreSQL a dedicated connection
+ * LISTENs on tax_rules_changed, so a rule change reaches every instance as soon as it commits;
+ * a slow poll of tax_rule_version covers other databases and notifications missed while the
+ * listening connection was down.
+ */
+@Component
+public class TaxRuleChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaxRuleChangeListener.class);
+
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    @Autowired
+    private ComplianceService complianceService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.compliance.rules.listen-enabled:true}")
+    private boolean listenEnabled;
+
+    // How long one wait for notifications blocks before checking for shutdown
+    @Value("${app.compliance.rules.listen-timeout-ms:10000}")
+    private int listenTimeoutMs;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!listenEnabled) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                logger.info("Tax rule changes are picked up by polling only");
+                return;
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not determine database for tax rule notifications: {}", e.getMessage());
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "tax-rule-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.compliance.rules.poll-interval-ms:30000}")
+    public void poll() {
+        try {
+            if (complianceService.reloadRulesIfChanged()) {
+                logger.info("Tax rule change picked up by polling");
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Checking the tax rule version failed: {}", e.getMessage());
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + ComplianceServiceImpl.RULES_CHANGED_CHANNEL);
+                }
+                // Changes committed while this connection was not listening
+                complianceService.reloadRulesIfChanged();
+                logger.info("Listening for tax rule changes");
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(listenTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        // Several changes in a row collapse into one reload of the latest version
+                        complianceService.reloadRulesIfChanged();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Tax rule listener lost its connection, retrying in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
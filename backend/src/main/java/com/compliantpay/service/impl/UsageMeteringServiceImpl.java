@@ -0,0 +1,278 @@
+package com.compliantpay.service.impl;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.compliantpay.service.UsageMeteringService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory usage metering. Each call increments striped {@link LongAdder} counters, so metering
+ * costs no database write and no shared lock per request. On a schedule, lifetime totals are added
+ * to {@code users.usage_count} and monthly counts per feature to {@code usage_monthly}, as deltas
+ * in one transaction.
+ *
+ * Quotas are checked against the in-memory monthly counts, which start from the stored counts of
+ * the current month. The check and the increment are not atomic, so concurrent calls may overshoot
+ * a quota by a few calls, as may calls counted on other instances since startup.
+ */
+@Service
+public class UsageMeteringServiceImpl implements UsageMeteringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageMeteringServiceImpl.class);
+
+    private static final String FLUSH_SQL = "UPDATE users SET usage_count = usage_count + ? WHERE username = ?";
+    private static final String ADD_MONTHLY_SQL =
+            "UPDATE usage_monthly SET call_count = call_count + ? WHERE username = ? AND usage_month = ? AND feature = ?";
+    private static final String INSERT_MONTHLY_SQL =
+            "INSERT INTO usage_monthly (call_count, username, usage_month, feature) VALUES (?, ?, ?, ?)";
+    private static final String LOAD_MONTHLY_SQL = "SELECT username, feature, call_count FROM usage_monthly WHERE usage_month = ?";
+    private static final long UNLIMITED = -1L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    // Set once the stored monthly counts are loaded; only read and written while holding the flush lock
+    private boolean loaded;
+
+    private final Map<String, UserUsage> usages = new ConcurrentHashMap<>();
+    private final Map<String, Long> quotas = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Refreshed by each flush so the request path does not read the clock
+    private volatile YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+
+    private static class UserUsage {
+        private final LongAdder total = new LongAdder();
+        private final AtomicReference<MonthlyCounts> month;
+        // Counts of the month before, kept until their last calls are flushed
+        private volatile MonthlyCounts previous;
+        // Only read and written while holding the flush lock
+        private long flushed;
+
+        UserUsage(YearMonth month) {
+            this.month = new AtomicReference<>(new MonthlyCounts(month));
+        }
+
+        MonthlyCounts countsFor(YearMonth current) {
+            MonthlyCounts counts = month.get();
+            if (counts.month.equals(current)) {
+                return counts;
+            }
+            // First call of a new month; whoever loses the race uses the winner's counters
+            if (month.compareAndSet(counts, new MonthlyCounts(current))) {
+                previous = counts;
+            }
+            return month.get();
+        }
+    }
+
+    private static class MonthlyCounts {
+        private final YearMonth month;
+        private final Map<String, LongAdder> byFeature = new ConcurrentHashMap<>();
+        // Count per feature already in usage_monthly; only used while holding the flush lock
+        private final Map<String, Long> flushed = new HashMap<>();
+
+        MonthlyCounts(YearMonth month) {
+            this.month = month;
+        }
+    }
+
+    /**
+     * Adds the stored counts of the current month once schema.sql has run. The filter creates this
+     * service before that, so calls counted earlier are kept and flushes wait for the load.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadMonthlyCounts() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flushLock.lock();
+        try {
+            YearMonth month = currentMonth;
+            jdbcTemplate.query(LOAD_MONTHLY_SQL, resultSet -> {
+                String username = resultSet.getString(1);
+                String feature = resultSet.getString(2);
+                long count = resultSet.getLong(3);
+                MonthlyCounts counts = usages.computeIfAbsent(username, k -> new UserUsage(month)).countsFor(month);
+                counts.byFeature.computeIfAbsent(feature, f -> new LongAdder()).add(count);
+                counts.flushed.merge(feature, count, Long::sum);
+            }, month.toString());
+            loaded = true;
+            logger.info("Loaded monthly usage counts of {} users for {}", usages.size(), month);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryRecord(String username, String subscriptionTier, String feature) {
+        YearMonth month = currentMonth;
+        UserUsage usage = usages.computeIfAbsent(username, k -> new UserUsage(month));
+        LongAdder counter = usage.countsFor(month).byFeature.computeIfAbsent(feature, f -> new LongAdder());
+        long quota = quotaFor(subscriptionTier, feature);
+        if (quota != UNLIMITED && counter.sum() >= quota) {
+            return false;
+        }
+        counter.increment();
+        usage.total.increment();
+        return true;
+    }
+
+    @Override
+    public Map<String, Long> getMonthlyUsage(String username) {
+        Map<String, Long> result = new TreeMap<>();
+        UserUsage usage = usages.get(username);
+        if (usage != null) {
+            usage.countsFor(currentMonth).byFeature.forEach((feature, count) -> result.put(feature, count.sum()));
+        }
+        return result;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.usage.flush-interval-ms:10000}")
+    public void flush() {
+        currentMonth = YearMonth.now(ZoneOffset.UTC);
+        flushLock.lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            List<String> usernames = new ArrayList<>();
+            List<Long> totals = new ArrayList<>();
+            List<Object[]> batch = new ArrayList<>();
+            List<MonthlyDelta> monthly = new ArrayList<>();
+            Map<UserUsage, MonthlyCounts> rolledOver = new HashMap<>();
+            for (Map.Entry<String, UserUsage> entry : usages.entrySet()) {
+                UserUsage usage = entry.getValue();
+                // Deltas against a running total; calls counted while flushing go into the next flush
+                long total = usage.total.sum();
+                if (total > usage.flushed) {
+                    usernames.add(entry.getKey());
+                    totals.add(total);
+                    batch.add(new Object[] { total - usage.flushed, entry.getKey() });
+                }
+                MonthlyCounts previous = usage.previous;
+                if (previous != null) {
+                    rolledOver.put(usage, previous);
+                    collectMonthly(entry.getKey(), previous, monthly);
+                }
+                collectMonthly(entry.getKey(), usage.month.get(), monthly);
+            }
+            if (batch.isEmpty() && monthly.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                }
+                if (!monthly.isEmpty()) {
+                    addMonthly(monthly);
+                }
+            });
+            for (int i = 0; i < usernames.size(); i++) {
+                usages.get(usernames.get(i)).flushed = totals.get(i);
+            }
+            for (MonthlyDelta delta : monthly) {
+                delta.counts.flushed.put(delta.feature, delta.count);
+            }
+            // Last month's counts are stored; later calls count against the new month
+            rolledOver.forEach((usage, previous) -> {
+                if (usage.previous == previous) {
+                    usage.previous = null;
+                }
+            });
+            logger.debug("Flushed usage counts for {} users and {} monthly counts", batch.size(), monthly.size());
+        } catch (RuntimeException e) {
+            logger.warn("Usage flush failed, deltas kept for the next attempt: {}", e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private static void collectMonthly(String username, MonthlyCounts counts, List<MonthlyDelta> monthly) {
+        counts.byFeature.forEach((feature, counter) -> {
+            long count = counter.sum();
+            long flushed = counts.flushed.getOrDefault(feature, 0L);
+            if (count > flushed) {
+                monthly.add(new MonthlyDelta(username, counts, feature, count, count - flushed));
+            }
+        });
+    }
+
+    /**
+     * Adds the deltas to usage_monthly, inserting the rows that do not exist yet. A row inserted
+     * concurrently by another instance fails the flush, which is retried with the same deltas.
+     */
+    private void addMonthly(List<MonthlyDelta> monthly) {
+        List<Object[]> rows = new ArrayList<>(monthly.size());
+        for (MonthlyDelta delta : monthly) {
+            rows.add(new Object[] { delta.delta, delta.username, delta.counts.month.toString(), delta.feature });
+        }
+        int[] updated = jdbcTemplate.batchUpdate(ADD_MONTHLY_SQL, rows);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(rows.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MONTHLY_SQL, inserts);
+        }
+    }
+
+    private static class MonthlyDelta {
+        private final String username;
+        private final MonthlyCounts counts;
+        private final String feature;
+        // Count the feature reaches once this delta is stored
+        private final long count;
+        private final long delta;
+
+        MonthlyDelta(String username, MonthlyCounts counts, String feature, long count, long delta) {
+            this.username = username;
+            this.counts = counts;
+            this.feature = feature;
+            this.count = count;
+            this.delta = delta;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private long quotaFor(String subscriptionTier, String feature) {
+        String tier = subscriptionTier != null ? subscriptionTier : "BASIC";
+        return quotas.computeIfAbsent(tier + ':' + feature, key -> environment.getProperty(
+                "app.usage.quotas." + tier.toLowerCase() + "." + feature, Long.class, UNLIMITED));
+    }
+}
@@ -0,0 +1,165 @@
+package com.compliantpay.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.compliantpay.event.EmployeeChangedEvent;
+import com.compliantpay.model.Employee;
+import com.compliantpay.model.WorkforceSnapshot;
+import com.compliantpay.repository.EmployeeRepository;
+import com.compliantpay.service.JurisdictionRegistry;
+import com.compliantpay.service.WorkforceSnapshotService;
+import com.compliantpay.util.CodeDictionary;
+
+/**
+ * Maintains the columnar workforce snapshot shared by analytics, simulation and tax preview code.
+ * A full load happens at startup; afterwards each employee change made on this instance derives a
+ * new snapshot version copy-on-write, so readers never see a partially applied change. Changes
+ * made on other instances or directly in the database are caught by a periodic check of a cheap
+ * fingerprint of the employees table, which reloads the snapshot when it moved.
+ */
+@Service
+public class WorkforceSnapshotServiceImpl implements WorkforceSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkforceSnapshotServiceImpl.class);
+
+    // Moves when a row is added or removed, updated through JPA, or an active salary changes
+    private static final String FINGERPRINT_SQL =
+            "SELECT COUNT(*), MAX(updated_at), SUM(CASE WHEN is_active THEN salary ELSE 0 END) FROM employees";
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private JurisdictionRegistry jurisdictionRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final CodeDictionary departments = new CodeDictionary();
+    private final CodeDictionary benefitPlans = new CodeDictionary();
+
+    private volatile WorkforceSnapshot snapshot;
+    // Fingerprint of the employees table taken just before the last full load
+    private volatile String loadedFingerprint;
+
+    // Writers may block on the database while holding this; a monitor would pin virtual threads
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Override
+    public WorkforceSnapshot getSnapshot() {
+        WorkforceSnapshot current = snapshot;
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.workforce.snapshot.check-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (snapshot == null) {
+            return;
+        }
+        String fingerprint = fingerprint();
+        if (!fingerprint.equals(loadedFingerprint)) {
+            logger.debug("Employees table changed outside this instance's events, reloading the workforce snapshot");
+            rebuild();
+        }
+    }
+
+    @Override
+    public WorkforceSnapshot rebuild() {
+        writeLock.lock();
+        try {
+            return load();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private WorkforceSnapshot load() {
+        // Taken first, so a change landing during the load still differs at the next check
+        String fingerprint = fingerprint();
+        List<Employee> employees = employeeRepository.findByIsActiveTrue();
+        int size = employees.size();
+        UUID[] ids = new UUID[size];
+        long[] salaries = new long[size];
+        int[] locationCodes = new int[size];
+        int[] departmentCodes = new int[size];
+        int[] planCodes = new int[size];
+        Map<UUID, Integer> rowIndex = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+            Employee employee = employees.get(i);
+            ids[i] = employee.getId();
+            salaries[i] = toCents(employee.getSalary());
+            locationCodes[i] = jurisdictionCodeOf(employee);
+            departmentCodes[i] = departments.intern(employee.getDepartment());
+            planCodes[i] = benefitPlans.intern(employee.getBenefitPlan());
+            rowIndex.put(employee.getId(), i);
+        }
+
+        long version = snapshot != null ? snapshot.getVersion() + 1 : 1;
+        WorkforceSnapshot rebuilt = new WorkforceSnapshot(version, size, ids, salaries, locationCodes,
+                departmentCodes, planCodes, rowIndex, departments, benefitPlans);
+        snapshot = rebuilt;
+        loadedFingerprint = fingerprint;
+        logger.info("Workforce snapshot v{} loaded with {} active employees", version, size);
+        return rebuilt;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        Employee employee = event.getEmployee();
+        writeLock.lock();
+        try {
+            WorkforceSnapshot current = snapshot;
+            if (current == null) {
+                // Nothing loaded yet; the initial load will pick the change up
+                return;
+            }
+            boolean active = event.getChangeType() != EmployeeChangedEvent.ChangeType.DEACTIVATED
+                    && !Boolean.FALSE.equals(employee.getIsActive());
+            snapshot = active
+                    ? current.withEmployee(employee.getId(), toCents(employee.getSalary()),
+                            jurisdictionCodeOf(employee), employee.getDepartment(), employee.getBenefitPlan())
+                    : current.withoutEmployee(employee.getId());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private String fingerprint() {
+        return jdbcTemplate.queryForObject(FINGERPRINT_SQL, (resultSet, row) ->
+                resultSet.getLong(1) + "|" + resultSet.getTimestamp(2) + "|" + resultSet.getBigDecimal(3));
+    }
+
+    private int jurisdictionCodeOf(Employee employee) {
+        Integer code = employee.getJurisdictionCode();
+        return code != null ? code : jurisdictionRegistry.intern(employee.getLocation());
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
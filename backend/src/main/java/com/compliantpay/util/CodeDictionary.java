@@ -0,0 +1,59 @@
+package com.compliantpay.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary that interns strings into dense integer codes.
+ * Codes are never reassigned, so arrays encoded against an older state stay valid.
+ */
+public class CodeDictionary {
+
+    public static final int UNKNOWN = -1;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    public int intern(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            int next = size;
+            current[next] = value;
+            values = current;
+            size = next + 1;
+            codes.put(value, next);
+            return next;
+        }
+    }
+
+    public int lookup(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        return codes.getOrDefault(value, UNKNOWN);
+    }
+
+    public String decode(int code) {
+        String[] current = values;
+        return code >= 0 && code < current.length ? current[code] : null;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
@@ -2,6 +2,7 @@ package com.compliantpay.util;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 public class HashUtil {
     
@@ -28,4 +29,12 @@ public class HashUtil {
         String fullHash = generateSHA256Hash(input);
         return fullHash.substring(0, Math.min(length, fullHash.length()));
     }
+    
+    public static String toHex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+    
+    public static byte[] fromHex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
 }
\ No newline at end of file
@@ -41,6 +41,16 @@ public class JwtUtils {
                 .compact(); // Build the token string
     }
 
+    // Generate a JWT token for a user whose session is renewed through a refresh token
+    public String generateTokenFromUsername(String username) {
+        return Jwts.builder()
+                .subject(username)
+                .issuedAt(new Date())
+                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(key())
+                .compact();
+    }
+
     // Extract username from a JWT token
     public String getUserNameFromJwtToken(String token) {
          try {
@@ -0,0 +1,180 @@
+package com.compliantpay.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+
+import com.compliantpay.model.BlockchainTransaction;
+
+/**
+ * Hash linking of ledger entries. An entry's hash is SHA-256 over a canonical binary encoding of
+ * its stored fields, so any entry can be re-verified from its own contents:
+ *
+ * <pre>
+ * version          1 byte
+ * transactionType  int UTF-8 byte count + UTF-8
+ * details          int UTF-8 byte count + UTF-8
+ * dataHash         int UTF-8 byte count + UTF-8
+ * previousHash     tag 1 + 32 raw bytes for 0x-prefixed SHA-256 hex, otherwise tag 0 + string
+ * blockNumber      long, -1 if absent
+ * timestamp        long epoch second + int nano of the instant
+ * </pre>
+ *
+ * The digest, encoder and scratch buffer are kept per thread, so hashing an entry or its payload
+ * allocates nothing beyond the digest and the resulting hex string.
+ */
+public class LedgerHash {
+
+    public static final String GENESIS_HASH = "0x0000000000000000000000000000000000000000000000000000000000000000";
+
+    // 2: strings prefixed with their UTF-8 byte count instead of their char count
+    private static final byte ENCODING_VERSION = 2;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final ThreadLocal<Hasher> HASHER = ThreadLocal.withInitial(Hasher::new);
+
+    public static String transactionHash(BlockchainTransaction transaction) {
+        return "0x" + HEX.formatHex(HASHER.get().hash(transaction));
+    }
+
+    /**
+     * Short hash of an entry's payload as shown in the ledger: the first 8 bytes of the SHA-256
+     * of its UTF-8 encoding in hex, followed by "..."
+     */
+    public static String dataHash(String data) {
+        return HEX.formatHex(HASHER.get().hash(data), 0, 8) + "...";
+    }
+
+    private static class Hasher {
+        private final MessageDigest digest;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer scratch = ByteBuffer.allocate(512);
+
+        Hasher() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("Error generating transaction hash", e);
+            }
+        }
+
+        byte[] hash(BlockchainTransaction transaction) {
+            digest.reset();
+            scratch.clear();
+            scratch.put(ENCODING_VERSION);
+            putString(transaction.getTransactionType());
+            putString(transaction.getDetails());
+            putString(transaction.getDataHash());
+            putPreviousHash(transaction.getPreviousHash());
+            Long blockNumber = transaction.getBlockNumber();
+            ensure(Long.BYTES * 2 + Integer.BYTES);
+            scratch.putLong(blockNumber != null ? blockNumber : -1L);
+            Instant timestamp = transaction.getTimestamp();
+            scratch.putLong(timestamp.getEpochSecond());
+            scratch.putInt(timestamp.getNano());
+            flush();
+            return digest.digest();
+        }
+
+        byte[] hash(String data) {
+            digest.reset();
+            scratch.clear();
+            putChars(data);
+            flush();
+            return digest.digest();
+        }
+
+        private void putString(String value) {
+            String text = value != null ? value : "";
+            ensure(Integer.BYTES);
+            scratch.putInt(utf8Length(text));
+            putChars(text);
+        }
+
+        /**
+         * Number of bytes putChars writes for the text; an unpaired surrogate becomes the
+         * encoder's one-byte replacement
+         */
+        private static int utf8Length(String text) {
+            int length = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    length += 1;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        private void putChars(String text) {
+            encoder.reset();
+            CharBuffer chars = CharBuffer.wrap(text);
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, scratch, true);
+                if (result.isOverflow()) {
+                    flush();
+                }
+            } while (result.isOverflow());
+            while (encoder.flush(scratch).isOverflow()) {
+                flush();
+            }
+        }
+
+        private void putPreviousHash(String previousHash) {
+            if (previousHash != null && previousHash.length() == 66 && previousHash.startsWith("0x")
+                    && isHex(previousHash)) {
+                ensure(1 + 32);
+                scratch.put((byte) 1);
+                for (int i = 2; i < 66; i += 2) {
+                    scratch.put((byte) ((Character.digit(previousHash.charAt(i), 16) << 4)
+                            | Character.digit(previousHash.charAt(i + 1), 16)));
+                }
+            } else {
+                ensure(1);
+                scratch.put((byte) 0);
+                putString(previousHash);
+            }
+        }
+
+        private void ensure(int bytes) {
+            if (scratch.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            scratch.flip();
+            digest.update(scratch);
+            scratch.clear();
+        }
+
+        private static boolean isHex(String value) {
+            for (int i = 2; i < value.length(); i++) {
+                if (Character.digit(value.charAt(i), 16) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.compliantpay.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Binary SHA-256 Merkle tree over fixed-size leaf digests.
+ * An odd node at the end of a level is promoted unchanged to the next level.
+ *
+ * Instances keep every level so a changed leaf only rehashes its path to the root.
+ */
+public class MerkleTree {
+
+    private static final byte[] EMPTY_ROOT = new byte[32];
+
+    private final byte[][][] levels;
+
+    public MerkleTree(List<byte[]> leaves) {
+        MessageDigest digest = sha256();
+        int depth = 1;
+        for (int width = leaves.size(); width > 1; width = (width + 1) / 2) {
+            depth++;
+        }
+        levels = new byte[depth][][];
+        levels[0] = leaves.toArray(new byte[0][]);
+        for (int l = 1; l < depth; l++) {
+            byte[][] below = levels[l - 1];
+            byte[][] level = new byte[(below.length + 1) / 2][];
+            for (int i = 0; i < level.length; i++) {
+                level[i] = node(digest, below, 2 * i);
+            }
+            levels[l] = level;
+        }
+    }
+
+    private MerkleTree(byte[][][] levels) {
+        this.levels = levels;
+    }
+
+    public byte[] root() {
+        byte[][] top = levels[levels.length - 1];
+        return top.length == 0 ? EMPTY_ROOT.clone() : top[0];
+    }
+
+    public int size() {
+        return levels[0].length;
+    }
+
+    public byte[] leaf(int index) {
+        return levels[0][index];
+    }
+
+    /**
+     * Replaces one leaf and rehashes the nodes on its path, log2(size) digests in total
+     */
+    public void update(int index, byte[] leaf) {
+        MessageDigest digest = sha256();
+        levels[0][index] = leaf;
+        for (int l = 1; l < levels.length; l++) {
+            index /= 2;
+            levels[l][index] = node(digest, levels[l - 1], 2 * index);
+        }
+    }
+
+    /**
+     * Copies the level arrays so updates to the copy leave this tree untouched; node digests
+     * themselves are never modified and are shared.
+     */
+    public MerkleTree copy() {
+        byte[][][] copied = new byte[levels.length][][];
+        for (int l = 0; l < levels.length; l++) {
+            copied[l] = levels[l].clone();
+        }
+        return new MerkleTree(copied);
+    }
+
+    private static byte[] node(MessageDigest digest, byte[][] below, int left) {
+        return left + 1 < below.length ? combine(digest, below[left], below[left + 1]) : below[left];
+    }
+
+    static byte[] combine(MessageDigest digest, byte[] left, byte[] right) {
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error generating hash", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.compliantpay.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes exports as newline-delimited JSON straight to the response while the source produces
+ * them, gzip-compressed when the client accepts it. Nothing is collected first, so memory stays
+ * flat however large the export, and the first record goes out as soon as it is read.
+ */
+public final class NdjsonExport {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    // Records between flushes to the client; each flush also ends a gzip block
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private NdjsonExport() {
+    }
+
+    /**
+     * @param source passes every record to the given consumer, in export order
+     */
+    public static <T> void write(HttpServletResponse response, ObjectMapper objectMapper, String filename,
+                                 String acceptEncoding, Consumer<Consumer<T>> source) throws IOException {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + ".ndjson\"");
+        response.setHeader("Cache-Control", "no-store");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        OutputStream out = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), 8192, true)
+                : response.getOutputStream();
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            long[] written = {0};
+            try {
+                source.accept(record -> {
+                    try {
+                        writer.writeValue(generator, record);
+                        generator.writeRaw('\n');
+                        // The first record right away, then in batches
+                        if (written[0]++ % FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ CREATE TABLE IF NOT EXISTS employees (
     salary NUMERIC(12,2) NOT NULL,
     benefit_plan VARCHAR(100) NOT NULL,
     location VARCHAR(100) NOT NULL,
+    jurisdiction_code INTEGER,
     email VARCHAR(255),
     phone VARCHAR(50),
     status VARCHAR(50) DEFAULT 'active',
@@ -21,6 +22,15 @@ CREATE TABLE IF NOT EXISTS employees (
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT now()
 );
 
+ALTER TABLE employees ADD COLUMN IF NOT EXISTS jurisdiction_code INTEGER;
+
+-- Interned jurisdiction names; the id is the code used by in-memory rule tables
+CREATE TABLE IF NOT EXISTS jurisdictions (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) UNIQUE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT now()
+);
+
 CREATE TABLE IF NOT EXISTS payroll_runs (
     id UUID PRIMARY KEY,
     pay_period VARCHAR(50) NOT NULL, -- e.g. "2025-10"
@@ -29,11 +39,52 @@ CREATE TABLE IF NOT EXISTS payroll_runs (
     employee_count INTEGER NOT NULL,
     status VARCHAR(50) NOT NULL,
     blockchain_tx_hash VARCHAR(255),
+    anchor_tx_hash VARCHAR(255),
     compliance_rules_hash VARCHAR(255),
+    idempotency_key VARCHAR(100),
     created_at TIMESTAMP WITH TIME ZONE DEFAULT now(),
     processed_at TIMESTAMP WITH TIME ZONE
 );
 
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(100);
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS anchor_tx_hash VARCHAR(255);
+-- Remote anchor of the run's data hash; reconciled until anchor_block_number is set
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS anchor_digest VARCHAR(255);
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS anchor_receipt_id VARCHAR(100);
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS anchor_merkle_root VARCHAR(255);
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS anchor_leaf_index INTEGER;
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS anchor_merkle_proof TEXT; -- JSON array of {hash, left} steps
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS anchor_block_number BIGINT;
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS rules_version BIGINT; -- tax rule version the run was computed with
+-- Lease of the instance aggregating a distributed run; another instance takes over once it expires
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS aggregating_owner VARCHAR(100);
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS aggregation_expires_at TIMESTAMP WITH TIME ZONE;
+-- Idempotency keys are scoped per user
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS idempotency_owner VARCHAR(100);
+ALTER TABLE payroll_runs ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+DROP INDEX IF EXISTS uk_payrollrun_idempotency_key;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payrollrun_idempotency ON payroll_runs (idempotency_owner, idempotency_key);
+
+-- Payslip ids are handed out in blocks of 50 (Hibernate pooled-lo / PayslipLineWriter)
+CREATE SEQUENCE IF NOT EXISTS payslip_line_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS payslip_lines (
+    id BIGINT PRIMARY KEY,
+    run_id UUID NOT NULL,
+    employee_id UUID NOT NULL,
+    gross_amount NUMERIC(12,2) NOT NULL,
+    tax_amount NUMERIC(12,2) NOT NULL,
+    net_amount NUMERIC(12,2) NOT NULL,
+    tax_breakdown TEXT, -- JSON object of monthly tax per rule name
+    leaf_hash VARCHAR(64),
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT now()
+);
+
+ALTER TABLE payslip_lines ADD COLUMN IF NOT EXISTS leaf_hash VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS idx_payslip_run ON payslip_lines (run_id);
+CREATE INDEX IF NOT EXISTS idx_payslip_employee ON payslip_lines (employee_id);
+
 CREATE TABLE IF NOT EXISTS blockchain_transactions (
     id UUID PRIMARY KEY,
     transaction_type VARCHAR(100) NOT NULL, -- e.g. PayrollRun, BenefitUpdate
@@ -46,3 +97,106 @@ CREATE TABLE IF NOT EXISTS blockchain_transactions (
     status VARCHAR(50) NOT NULL,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT now()
 );
+
+-- Chain order for the jpa ledger store; also refuses a second entry at the same height
+CREATE UNIQUE INDEX IF NOT EXISTS uk_blockchain_tx_block_number ON blockchain_transactions (block_number);
+
+-- Refresh tokens are stored as HMAC-SHA256 hex of the opaque value handed to the client
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id UUID PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    family_id UUID NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    used BOOLEAN NOT NULL DEFAULT FALSE,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT now()
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_refresh_token_hash ON refresh_tokens (token_hash);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_family ON refresh_tokens (family_id);
+
+-- Slices of distributed payroll runs, claimed by backend instances with FOR UPDATE SKIP LOCKED
+CREATE TABLE IF NOT EXISTS payroll_chunks (
+    id UUID PRIMARY KEY,
+    run_id UUID NOT NULL,
+    seq INTEGER NOT NULL,
+    employee_ids TEXT NOT NULL, -- comma-separated employee UUIDs
+    status VARCHAR(20) NOT NULL,
+    owner VARCHAR(100),
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    employee_count INTEGER,
+    salary_cents BIGINT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT now(),
+    completed_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payroll_chunk_run_seq ON payroll_chunks (run_id, seq);
+CREATE INDEX IF NOT EXISTS idx_payroll_chunk_status ON payroll_chunks (status, lease_expires_at);
+
+CREATE TABLE IF NOT EXISTS tax_rules (
+    id UUID PRIMARY KEY,
+    jurisdiction VARCHAR(255) NOT NULL,
+    rule_name VARCHAR(255) NOT NULL,
+    rule_type VARCHAR(255) NOT NULL,
+    min_income NUMERIC(12,2),
+    max_income NUMERIC(12,2),
+    tax_rate NUMERIC(5,4),
+    fixed_amount NUMERIC(12,2),
+    effective_date TIMESTAMP WITH TIME ZONE NOT NULL,
+    expiration_date TIMESTAMP WITH TIME ZONE,
+    is_active BOOLEAN,
+    description VARCHAR(1000),
+    created_at TIMESTAMP WITH TIME ZONE,
+    updated_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS idx_taxrule_jurisdiction ON tax_rules (jurisdiction);
+CREATE INDEX IF NOT EXISTS idx_taxrule_rule_type ON tax_rules (rule_type);
+
+-- Single row; bumped in the same transaction as every tax rule change. Instances compare it with
+-- the version they compiled (and are told through NOTIFY tax_rules_changed on PostgreSQL).
+CREATE TABLE IF NOT EXISTS tax_rule_version (
+    id INTEGER PRIMARY KEY,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT now()
+);
+
+INSERT INTO tax_rule_version (id, version) SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM tax_rule_version WHERE id = 1);
+
+-- Active rules of every tax rule version, written with the version bump; tax_rules only holds the latest
+CREATE TABLE IF NOT EXISTS tax_rule_snapshots (
+    version BIGINT PRIMARY KEY,
+    rules_hash VARCHAR(64) NOT NULL,
+    rules TEXT NOT NULL, -- JSON array of the active rules
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT now()
+);
+
+-- Lease held by the one instance that appends to the ledger (see LedgerLeaderElection)
+CREATE TABLE IF NOT EXISTS ledger_leader (
+    id INTEGER PRIMARY KEY,
+    owner VARCHAR(100),
+    endpoint VARCHAR(255),
+    epoch BIGINT NOT NULL DEFAULT 0, -- incremented on every lease acquisition; fences ledger appends
+    lease_expires_at TIMESTAMP WITH TIME ZONE
+);
+
+INSERT INTO ledger_leader (id, epoch) SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM ledger_leader WHERE id = 1);
+
+-- Signed ledger verification checkpoints kept by the jpa ledger store (see ChainVerificationServiceImpl)
+CREATE TABLE IF NOT EXISTS ledger_checkpoints (
+    entry_count INTEGER PRIMARY KEY,
+    transaction_hash VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    signature VARCHAR(64) NOT NULL
+);
+
+-- Metered calls per user, month (YYYY-MM, UTC) and feature, added by UsageMeteringServiceImpl's flush
+CREATE TABLE IF NOT EXISTS usage_monthly (
+    username VARCHAR(100) NOT NULL,
+    usage_month VARCHAR(7) NOT NULL,
+    feature VARCHAR(100) NOT NULL,
+    call_count BIGINT NOT NULL,
+    PRIMARY KEY (username, usage_month, feature)
+);
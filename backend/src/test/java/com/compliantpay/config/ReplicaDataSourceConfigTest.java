@@ -0,0 +1,62 @@
+package com.compliantpay.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReplicaDataSourceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+            .withUserConfiguration(ReplicaDataSourceConfig.class)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.driver-class-name=org.h2.Driver",
+                    "app.datasource.replica.enabled=true",
+                    "app.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+                    "app.datasource.replica.driver-class-name=org.h2.Driver",
+                    "app.datasource.replica.max-lag-seconds=5");
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaWhileItIsCaughtUp() {
+        contextRunner.withPropertyValues("app.datasource.replica.lag-query=SELECT 0").run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(context.getBean(ReplicaLagMonitor.class).isReplicaUsable()).isTrue();
+            assertThat(databaseName(dataSource, true)).isEqualTo("REPLICA");
+            assertThat(databaseName(dataSource, false)).isEqualTo("PRIMARY");
+        });
+    }
+
+    @Test
+    void readOnlyTransactionsFallBackToThePrimaryWhenTheReplicaLags() {
+        contextRunner.withPropertyValues("app.datasource.replica.lag-query=SELECT 60").run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            ReplicaLagMonitor lagMonitor = context.getBean(ReplicaLagMonitor.class);
+            assertThat(lagMonitor.isReplicaUsable()).isFalse();
+            assertThat(lagMonitor.getLagSeconds()).isEqualTo(60);
+            assertThat(databaseName(dataSource, true)).isEqualTo("PRIMARY");
+        });
+    }
+
+    @Test
+    void readOnlyTransactionsFallBackToThePrimaryWhenTheLagCannotBeQueried() {
+        contextRunner.withPropertyValues("app.datasource.replica.lag-query=SELECT lag FROM missing_table").run(context -> {
+            assertThat(context.getBean(ReplicaLagMonitor.class).isReplicaUsable()).isFalse();
+            assertThat(databaseName(context.getBean(DataSource.class), true)).isEqualTo("PRIMARY");
+        });
+    }
+
+    private static String databaseName(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT DATABASE()", String.class));
+    }
+}
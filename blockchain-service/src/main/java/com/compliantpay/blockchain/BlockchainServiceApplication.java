@@ -0,0 +1,12 @@
+package com.compliantpay.blockchain;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class BlockchainServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(BlockchainServiceApplication.class, args);
+    }
+}
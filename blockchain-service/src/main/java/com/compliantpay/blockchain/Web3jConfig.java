@@ -0,0 +1,44 @@
+package com.compliantpay.blockchain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+/**
+ * Node connection and signing key for {@code app.chain.mode=web3j}. Any JSON-RPC endpoint works,
+ * including a local dev chain such as anvil, hardhat or ganache.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.chain.mode", havingValue = "web3j")
+public class Web3jConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(Web3jConfig.class);
+
+    @Value("${app.chain.web3j.rpc-url:http://localhost:8545}")
+    private String rpcUrl;
+
+    @Value("${app.chain.web3j.private-key:}")
+    private String privateKey;
+
+    @Bean(destroyMethod = "shutdown")
+    public Web3j web3j() {
+        logger.info("Anchoring against JSON-RPC node at {}", rpcUrl);
+        return Web3j.build(new HttpService(rpcUrl));
+    }
+
+    @Bean
+    public Credentials anchorCredentials() {
+        if (privateKey == null || privateKey.isBlank()) {
+            throw new IllegalStateException("app.chain.web3j.private-key must be set when app.chain.mode=web3j");
+        }
+        Credentials credentials = Credentials.create(privateKey.trim());
+        logger.info("Anchoring transactions will be signed by {}", credentials.getAddress());
+        return credentials;
+    }
+}
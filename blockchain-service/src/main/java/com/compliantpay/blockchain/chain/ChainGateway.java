@@ -0,0 +1,30 @@
+package com.compliantpay.blockchain.chain;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Access to the chain that anchoring transactions are sent to
+ */
+public interface ChainGateway {
+
+    /**
+     * Sends a transaction carrying {@code data} and returns its hash once the node has accepted it.
+     * Does not wait for the transaction to be mined.
+     */
+    String send(byte[] data);
+
+    /**
+     * @return the block the transaction was included in, or empty while it is still pending
+     */
+    OptionalLong inclusionBlock(String txHash);
+
+    /**
+     * @return why the transaction will never be included successfully, or empty while it still may be
+     */
+    default Optional<String> failure(String txHash) {
+        return Optional.empty();
+    }
+
+    long blockNumber();
+}
@@ -0,0 +1,90 @@
+package com.compliantpay.blockchain.chain;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process stand-in for an Ethereum node. Sent transactions wait in a mempool and a miner
+ * thread includes up to {@code max-tx-per-block} of them in a new block every
+ * {@code block-time-ms}, which reproduces block-bound throughput without a real node.
+ */
+@Component
+@ConditionalOnProperty(name = "app.chain.mode", havingValue = "fake", matchIfMissing = true)
+public class FakeChain implements ChainGateway {
+
+    @Value("${app.chain.fake.block-time-ms:1000}")
+    private long blockTimeMs;
+
+    @Value("${app.chain.fake.max-tx-per-block:500}")
+    private int maxTxPerBlock;
+
+    private final ConcurrentLinkedQueue<String> mempool = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> included = new ConcurrentHashMap<>();
+    private final AtomicLong height = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private ScheduledExecutorService miner;
+
+    @PostConstruct
+    public void start() {
+        miner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fake-chain-miner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        miner.scheduleAtFixedRate(this::mineBlock, blockTimeMs, blockTimeMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        miner.shutdownNow();
+    }
+
+    @Override
+    public String send(byte[] data) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(ByteBuffer.allocate(Long.BYTES).putLong(sequence.incrementAndGet()).array());
+            String txHash = "0x" + HexFormat.of().formatHex(md.digest(data));
+            mempool.add(txHash);
+            return txHash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error generating SHA-256 digest: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public OptionalLong inclusionBlock(String txHash) {
+        Long block = included.get(txHash);
+        return block != null ? OptionalLong.of(block) : OptionalLong.empty();
+    }
+
+    @Override
+    public long blockNumber() {
+        return height.get();
+    }
+
+    private void mineBlock() {
+        long block = height.incrementAndGet();
+        String txHash;
+        for (int i = 0; i < maxTxPerBlock && (txHash = mempool.poll()) != null; i++) {
+            included.put(txHash, block);
+        }
+    }
+}
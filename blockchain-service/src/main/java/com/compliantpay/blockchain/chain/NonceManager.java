@@ -0,0 +1,88 @@
+package com.compliantpay.blockchain.chain;
+
+import java.io.IOException;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+/**
+ * Hands out account nonces locally so transactions can be signed and sent back to back without
+ * asking the node for each one. The counter is seeded from the node's pending transaction count
+ * and reseeded when the node reports that it fell behind. Nonces of transactions the node
+ * rejected are handed out again before new ones so no gap blocks later transactions.
+ */
+public class NonceManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(NonceManager.class);
+
+    private final Web3j web3j;
+    private final String address;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeSet<Long> released = new TreeSet<>();
+    private long next = -1;
+
+    public NonceManager(Web3j web3j, String address) {
+        this.web3j = web3j;
+        this.address = address;
+    }
+
+    public long allocate() {
+        lock.lock();
+        try {
+            if (!released.isEmpty()) {
+                return released.pollFirst();
+            }
+            if (next < 0) {
+                next = pendingCount();
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a nonce whose transaction never reached the node
+     */
+    public void release(long nonce) {
+        lock.lock();
+        try {
+            if (nonce == next - 1) {
+                next--;
+            } else if (nonce < next) {
+                released.add(nonce);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops local state; the next allocation reads the count from the node again. Used when the
+     * account was also used elsewhere and the node answers "nonce too low".
+     */
+    public void resync() {
+        lock.lock();
+        try {
+            released.clear();
+            next = -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long pendingCount() {
+        try {
+            long count = web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING)
+                    .send().getTransactionCount().longValue();
+            logger.info("Nonce for {} seeded at {}", address, count);
+            return count;
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading transaction count: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,28 +1,106 @@
 package com.compliantpay.blockchain.controller;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import com.compliantpay.blockchain.model.BlockchainPayload;
+import com.compliantpay.blockchain.model.TransactionReceipt;
 import com.compliantpay.blockchain.service.ProofAnchorService;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/anchor")
 public class ProofController {
 
+    // How long /proof waits for its transaction to be sent before answering with the receipt only
+    private static final long PROOF_SUBMIT_WAIT_MS = 10000;
+
     @Autowired
     private ProofAnchorService anchorService;
 
+    @Value("${app.anchor.max-batch-digests:10000}")
+    private int maxBatchDigests;
+
+    @Value("${app.anchor.max-wait-ms:60000}")
+    private long maxWaitMs;
+
     @PostMapping("/proof")
-    public ResponseEntity<Map<String, String>> anchorProof(@RequestBody Map<String, Object> body) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> anchorProof(@RequestBody Map<String, Object> body) {
         String digest = (String) body.getOrDefault("digest", "");
         String source = (String) body.getOrDefault("source", "ai-service");
-        String tx = anchorService.anchor(digest, source);
-        return ResponseEntity.ok(Map.of("txHash", tx, "digest", digest));
+        String idempotencyId = (String) body.get("idempotencyId");
+        List<TransactionReceipt> receipts = anchorService.submit(List.of(new BlockchainPayload(digest, source, idempotencyId)));
+        if (receipts == null) {
+            return CompletableFuture.completedFuture(saturated());
+        }
+        return anchorService.await(receipts, TransactionReceipt.Status.SUBMITTED, PROOF_SUBMIT_WAIT_MS)
+                .thenApply(latest -> {
+                    TransactionReceipt receipt = latest.get(0);
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("txHash", receipt.getTxHash());
+                    response.put("digest", digest);
+                    response.put("receiptId", receipt.getReceiptId());
+                    response.put("status", receipt.getStatus());
+                    response.put("merkleRoot", receipt.getMerkleRoot());
+                    response.put("leafIndex", receipt.getLeafIndex());
+                    response.put("merkleProof", receipt.getMerkleProof());
+                    return ResponseEntity.status(statusFor(latest)).body(response);
+                });
+    }
+
+    /**
+     * Accepts up to max-batch-digests digests at once. With waitMs the response is held until all
+     * of them have been sent in a transaction (200) or the wait runs out (202).
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> anchorBatch(@RequestBody Map<String, List<BlockchainPayload>> body,
+                                                                              @RequestParam(defaultValue = "0") long waitMs) {
+        List<BlockchainPayload> items = body.getOrDefault("items", List.of());
+        if (items.isEmpty() || items.size() > maxBatchDigests) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
+                    Map.of("error", "A batch must contain between 1 and " + maxBatchDigests + " digests")));
+        }
+        List<TransactionReceipt> receipts = anchorService.submit(items);
+        if (receipts == null) {
+            return CompletableFuture.completedFuture(saturated());
+        }
+        return anchorService.await(receipts, TransactionReceipt.Status.SUBMITTED, Math.min(waitMs, maxWaitMs))
+                .thenApply(latest -> ResponseEntity.status(statusFor(latest)).body(Map.<String, Object>of("results", latest)));
+    }
+
+    /**
+     * Receipt lookup; with waitMs this long-polls until the receipt reaches {@code waitFor}
+     * (CONFIRMED by default) or fails.
+     */
+    @GetMapping("/receipts/{receiptId}")
+    public CompletableFuture<ResponseEntity<TransactionReceipt>> getReceipt(@PathVariable String receiptId,
+                                                                            @RequestParam(defaultValue = "CONFIRMED") TransactionReceipt.Status waitFor,
+                                                                            @RequestParam(defaultValue = "0") long waitMs) {
+        return anchorService.awaitReceipt(receiptId, waitFor, Math.min(waitMs, maxWaitMs))
+                .thenApply(receipt -> receipt != null ? ResponseEntity.ok(receipt) : ResponseEntity.notFound().build());
+    }
+
+    private static HttpStatus statusFor(List<TransactionReceipt> receipts) {
+        boolean sent = receipts.stream().allMatch(r -> r.getStatus().reached(TransactionReceipt.Status.SUBMITTED));
+        return sent ? HttpStatus.OK : HttpStatus.ACCEPTED;
+    }
+
+    private static ResponseEntity<Map<String, Object>> saturated() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("error", "Anchoring queue is full"));
     }
 }
@@ -0,0 +1,35 @@
+package com.compliantpay.blockchain.model;
+
+/**
+ * One digest submitted for anchoring, with the system it came from. A client that may resubmit
+ * the digest sets an idempotency id, so a retry returns the first submission's receipt instead of
+ * anchoring the digest again.
+ */
+public class BlockchainPayload {
+
+    private String digest;
+    private String source;
+    private String idempotencyId;
+
+    public BlockchainPayload() {
+    }
+
+    public BlockchainPayload(String digest, String source) {
+        this(digest, source, null);
+    }
+
+    public BlockchainPayload(String digest, String source, String idempotencyId) {
+        this.digest = digest;
+        this.source = source;
+        this.idempotencyId = idempotencyId;
+    }
+
+    public String getDigest() { return digest; }
+    public void setDigest(String digest) { this.digest = digest; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getIdempotencyId() { return idempotencyId; }
+    public void setIdempotencyId(String idempotencyId) { this.idempotencyId = idempotencyId; }
+}
@@ -0,0 +1,24 @@
+package com.compliantpay.blockchain.model;
+
+/**
+ * One level of a Merkle inclusion proof: the sibling hash to combine with, and on which side.
+ * Folding a leaf with every step, {@code SHA-256(sibling || node)} when the sibling is on the left
+ * and {@code SHA-256(node || sibling)} otherwise, yields the Merkle root.
+ */
+public class ProofStep {
+
+    private final String hash;
+    private final boolean left;
+
+    public ProofStep(String hash, boolean left) {
+        this.hash = hash;
+        this.left = left;
+    }
+
+    public String getHash() { return hash; }
+
+    /**
+     * Whether the sibling is the left input of the hash
+     */
+    public boolean isLeft() { return left; }
+}
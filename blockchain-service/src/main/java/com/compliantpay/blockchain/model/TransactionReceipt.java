@@ -0,0 +1,96 @@
+package com.compliantpay.blockchain.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Anchoring status of a single digest. Instances are immutable; every state change produces a
+ * new receipt that replaces the old one in the receipt store.
+ *
+ * Digests submitted together share a transaction whose payload is the Merkle root of their
+ * leaves, each leaf being SHA-256 of the digest's UTF-8 bytes. {@code leafIndex} locates the digest
+ * in that tree and {@code merkleProof} holds its sibling hashes, so the digest's inclusion can be
+ * checked against the root on chain without the other digests.
+ */
+public class TransactionReceipt {
+
+    public enum Status {
+        PENDING, SUBMITTED, CONFIRMED, FAILED;
+
+        /**
+         * Whether a receipt in this status no longer needs to be waited on for {@code target}
+         */
+        public boolean reached(Status target) {
+            return this == FAILED || ordinal() >= target.ordinal();
+        }
+    }
+
+    private final String receiptId;
+    private final String digest;
+    private final String source;
+    private final Status status;
+    private final String txHash;
+    private final String merkleRoot;
+    private final Integer leafIndex;
+    private final List<ProofStep> merkleProof;
+    private final Long blockNumber;
+    private final String error;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+
+    private TransactionReceipt(String receiptId, String digest, String source, Status status, String txHash,
+                               String merkleRoot, Integer leafIndex, List<ProofStep> merkleProof, Long blockNumber, String error,
+                               Instant createdAt, Instant updatedAt) {
+        this.receiptId = receiptId;
+        this.digest = digest;
+        this.source = source;
+        this.status = status;
+        this.txHash = txHash;
+        this.merkleRoot = merkleRoot;
+        this.leafIndex = leafIndex;
+        this.merkleProof = merkleProof;
+        this.blockNumber = blockNumber;
+        this.error = error;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public static TransactionReceipt pending(String digest, String source) {
+        Instant now = Instant.now();
+        return new TransactionReceipt(UUID.randomUUID().toString(), digest, source, Status.PENDING,
+                null, null, null, null, null, null, now, now);
+    }
+
+    public TransactionReceipt submitted(String txHash, String merkleRoot, int leafIndex, List<ProofStep> merkleProof) {
+        return new TransactionReceipt(receiptId, digest, source, Status.SUBMITTED, txHash, merkleRoot,
+                leafIndex, List.copyOf(merkleProof), null, null, createdAt, Instant.now());
+    }
+
+    public TransactionReceipt confirmed(long blockNumber) {
+        return new TransactionReceipt(receiptId, digest, source, Status.CONFIRMED, txHash, merkleRoot,
+                leafIndex, merkleProof, blockNumber, null, createdAt, Instant.now());
+    }
+
+    public TransactionReceipt failed(String error) {
+        return new TransactionReceipt(receiptId, digest, source, Status.FAILED, txHash, merkleRoot,
+                leafIndex, merkleProof, null, error, createdAt, Instant.now());
+    }
+
+    public boolean isTerminal() {
+        return status == Status.CONFIRMED || status == Status.FAILED;
+    }
+
+    public String getReceiptId() { return receiptId; }
+    public String getDigest() { return digest; }
+    public String getSource() { return source; }
+    public Status getStatus() { return status; }
+    public String getTxHash() { return txHash; }
+    public String getMerkleRoot() { return merkleRoot; }
+    public Integer getLeafIndex() { return leafIndex; }
+    public List<ProofStep> getMerkleProof() { return merkleProof; }
+    public Long getBlockNumber() { return blockNumber; }
+    public String getError() { return error; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+}
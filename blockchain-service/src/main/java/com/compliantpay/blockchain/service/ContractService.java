@@ -0,0 +1,376 @@
+package com.compliantpay.blockchain.service;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
+
+import com.compliantpay.blockchain.chain.ChainGateway;
+import com.compliantpay.blockchain.chain.NonceManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends anchoring transactions to a real node through web3j.
+ *
+ * Transactions are signed locally with nonces from a {@link NonceManager} and sent without waiting
+ * for earlier ones to be mined, so many can be in flight per block. One polling loop follows all of
+ * them: on each new block it reads the account's mined nonce once and fetches receipts only for
+ * transactions below it. A transaction left unmined for {@code bump-after-seconds} is re-signed with
+ * the same nonce and a higher gas price; whichever version gets mined settles it.
+ *
+ * The id returned by {@link #send(byte[])} is the hash of the first version and stays valid across
+ * gas bumps. A transaction that was mined but reverted, or whose nonce went to a transaction this
+ * service did not send, is reported through {@link #failure(String)} rather than as included.
+ */
+@Service
+@ConditionalOnProperty(name = "app.chain.mode", havingValue = "web3j")
+public class ContractService implements ChainGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractService.class);
+
+    private static final int MAX_SEND_ATTEMPTS = 3;
+    // Blocks a transaction whose nonce is used may go without a receipt before it is given up
+    private static final int MAX_RECEIPT_MISSES = 3;
+
+    @Autowired
+    private Web3j web3j;
+
+    @Autowired
+    private Credentials credentials;
+
+    @Value("${app.chain.web3j.chain-id:0}")
+    private long chainId;
+
+    // Anchors are sent to this address; empty means the signing account itself
+    @Value("${app.chain.web3j.anchor-address:}")
+    private String anchorAddress;
+
+    @Value("${app.chain.web3j.gas-limit:30000}")
+    private long gasLimit;
+
+    @Value("${app.chain.web3j.max-gas-price-gwei:500}")
+    private long maxGasPriceGwei;
+
+    @Value("${app.chain.web3j.bump-after-seconds:60}")
+    private long bumpAfterSeconds;
+
+    @Value("${app.chain.web3j.bump-percent:15}")
+    private int bumpPercent;
+
+    @Value("${app.chain.web3j.max-bumps:5}")
+    private int maxBumps;
+
+    @Value("${app.chain.web3j.poll-ms:1000}")
+    private long pollMs;
+
+    @Value("${app.chain.web3j.inclusion-retention-minutes:10}")
+    private long inclusionRetentionMinutes;
+
+    private NonceManager nonceManager;
+    private String to;
+    private BigInteger maxGasPrice;
+    private volatile BigInteger gasPrice;
+    private volatile long headBlock = -1;
+    private long lastResolvedBlock = -1;
+
+    private final Map<String, PendingTx> pending = new ConcurrentHashMap<>();
+    private final Map<String, Inclusion> included = new ConcurrentHashMap<>();
+    private final Map<String, Failure> failed = new ConcurrentHashMap<>();
+    private ScheduledExecutorService poller;
+
+    private static class PendingTx {
+        private final String id;
+        private final long nonce;
+        private final String data;
+        // Every hash broadcast for this nonce, oldest first
+        private final List<String> hashes = new ArrayList<>();
+        private BigInteger gasPrice;
+        private String signed;
+        private long lastSentAt;
+        private int bumps;
+        private int receiptMisses;
+
+        PendingTx(String id, long nonce, String data, BigInteger gasPrice, String signed) {
+            this.id = id;
+            this.nonce = nonce;
+            this.data = data;
+            this.gasPrice = gasPrice;
+            this.signed = signed;
+            this.hashes.add(id);
+            this.lastSentAt = System.nanoTime();
+        }
+    }
+
+    private static class Inclusion {
+        private final long block;
+        private final long recordedAt;
+
+        Inclusion(long block, long recordedAt) {
+            this.block = block;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    private static class Failure {
+        private final String reason;
+        private final long recordedAt;
+
+        Failure(String reason, long recordedAt) {
+            this.reason = reason;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (chainId == 0) {
+            // Ask the node, which keeps local dev chains working without configuration
+            try {
+                chainId = web3j.ethChainId().send().getChainId().longValue();
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading chain id: " + e.getMessage(), e);
+            }
+        }
+        to = anchorAddress == null || anchorAddress.isBlank() ? credentials.getAddress() : anchorAddress.trim();
+        maxGasPrice = Convert.toWei(String.valueOf(maxGasPriceGwei), Convert.Unit.GWEI).toBigInteger();
+        nonceManager = new NonceManager(web3j, credentials.getAddress());
+        refreshGasPrice();
+        logger.info("Web3j anchoring on chain {} to {}", chainId, to);
+
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "web3j-receipt-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+        if (!pending.isEmpty()) {
+            logger.warn("Shutting down with {} anchoring transactions unmined", pending.size());
+        }
+    }
+
+    @Override
+    public String send(byte[] data) {
+        String hexData = Numeric.toHexString(data);
+        BigInteger price = gasPrice;
+        for (int attempt = 1; ; attempt++) {
+            long nonce = nonceManager.allocate();
+            String signed = sign(nonce, price, hexData);
+            String txHash = Hash.sha3(signed);
+            String error;
+            try {
+                error = broadcast(signed);
+            } catch (IOException e) {
+                // The node may still have received it; tracking it means the bump loop rebroadcasts
+                logger.warn("Sending anchoring transaction {} failed, will rebroadcast: {}", txHash, e.getMessage());
+                error = null;
+            }
+            if (error == null) {
+                pending.put(txHash, new PendingTx(txHash, nonce, hexData, price, signed));
+                return txHash;
+            }
+            if (isNonceTooLow(error)) {
+                logger.warn("Nonce {} already used, resynchronizing with the node", nonce);
+                nonceManager.resync();
+                if (attempt < MAX_SEND_ATTEMPTS) {
+                    continue;
+                }
+            } else {
+                nonceManager.release(nonce);
+            }
+            throw new RuntimeException("Node rejected anchoring transaction: " + error);
+        }
+    }
+
+    @Override
+    public OptionalLong inclusionBlock(String txHash) {
+        Inclusion inclusion = included.get(txHash);
+        return inclusion != null ? OptionalLong.of(inclusion.block) : OptionalLong.empty();
+    }
+
+    @Override
+    public Optional<String> failure(String txHash) {
+        Failure failure = failed.get(txHash);
+        return failure != null ? Optional.of(failure.reason) : Optional.empty();
+    }
+
+    @Override
+    public long blockNumber() {
+        long head = headBlock;
+        if (head >= 0) {
+            return head;
+        }
+        try {
+            return web3j.ethBlockNumber().send().getBlockNumber().longValue();
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading block number: " + e.getMessage(), e);
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void poll() {
+        try {
+            long head = web3j.ethBlockNumber().send().getBlockNumber().longValue();
+            headBlock = head;
+            refreshGasPrice();
+            if (!pending.isEmpty()) {
+                if (head != lastResolvedBlock) {
+                    lastResolvedBlock = head;
+                    resolveMined();
+                }
+                bumpStale();
+            }
+            evictSettled();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Polling anchoring transactions failed: {}", e.getMessage());
+        }
+    }
+
+    private void resolveMined() throws IOException {
+        long minedNonce = web3j.ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.LATEST)
+                .send().getTransactionCount().longValue();
+        for (PendingTx tx : pending.values()) {
+            if (tx.nonce >= minedNonce) {
+                continue;
+            }
+            Optional<TransactionReceipt> receipt = findReceipt(tx);
+            if (receipt.isPresent()) {
+                long block = receipt.get().getBlockNumber().longValue();
+                if (receipt.get().isStatusOK()) {
+                    included.put(tx.id, new Inclusion(block, System.nanoTime()));
+                } else {
+                    logger.warn("Anchoring transaction {} was mined but reverted", receipt.get().getTransactionHash());
+                    failed.put(tx.id, new Failure("Reverted in block " + block, System.nanoTime()));
+                }
+                pending.remove(tx.id);
+            } else if (++tx.receiptMisses >= MAX_RECEIPT_MISSES) {
+                logger.error("Nonce {} of anchoring transaction {} was used by another transaction", tx.nonce, tx.id);
+                failed.put(tx.id, new Failure("Nonce " + tx.nonce + " was used by another transaction", System.nanoTime()));
+                pending.remove(tx.id);
+            }
+        }
+    }
+
+    private Optional<TransactionReceipt> findReceipt(PendingTx tx) throws IOException {
+        for (int i = tx.hashes.size() - 1; i >= 0; i--) {
+            Optional<TransactionReceipt> receipt = web3j.ethGetTransactionReceipt(tx.hashes.get(i))
+                    .send().getTransactionReceipt();
+            if (receipt.isPresent()) {
+                return receipt;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void bumpStale() {
+        long now = System.nanoTime();
+        long bumpAfterNanos = TimeUnit.SECONDS.toNanos(bumpAfterSeconds);
+        for (PendingTx tx : pending.values()) {
+            if (now - tx.lastSentAt < bumpAfterNanos) {
+                continue;
+            }
+            tx.lastSentAt = now;
+            BigInteger bumped = tx.gasPrice.multiply(BigInteger.valueOf(100L + bumpPercent)).divide(BigInteger.valueOf(100));
+            bumped = bumped.max(gasPrice).min(maxGasPrice);
+            if (tx.bumps >= maxBumps || bumped.compareTo(tx.gasPrice) <= 0) {
+                // Cannot outbid any further; make sure the node still has the last version
+                rebroadcast(tx, tx.signed);
+                continue;
+            }
+            String signed = sign(tx.nonce, bumped, tx.data);
+            if (rebroadcast(tx, signed)) {
+                tx.hashes.add(Hash.sha3(signed));
+                tx.signed = signed;
+                tx.gasPrice = bumped;
+                tx.bumps++;
+                logger.info("Resubmitted anchoring transaction {} (nonce {}) at {} wei", tx.id, tx.nonce, bumped);
+            }
+        }
+    }
+
+    private boolean rebroadcast(PendingTx tx, String signed) {
+        try {
+            String error = broadcast(signed);
+            if (error == null) {
+                return true;
+            }
+            // Nonce too low here means one of the earlier versions was mined; the next block settles it
+            logger.debug("Rebroadcast of {} not accepted: {}", tx.id, error);
+        } catch (IOException e) {
+            logger.warn("Rebroadcast of {} failed: {}", tx.id, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * @return null if the node accepted the transaction or already had it, otherwise its error
+     */
+    private String broadcast(String signed) throws IOException {
+        EthSendTransaction response = web3j.ethSendRawTransaction(signed).send();
+        if (!response.hasError()) {
+            return null;
+        }
+        String message = response.getError().getMessage();
+        return message != null && message.toLowerCase().contains("already known") ? null : message;
+    }
+
+    private String sign(long nonce, BigInteger price, String hexData) {
+        RawTransaction raw = RawTransaction.createTransaction(BigInteger.valueOf(nonce), price,
+                BigInteger.valueOf(gasLimit), to, BigInteger.ZERO, hexData);
+        return Numeric.toHexString(TransactionEncoder.signMessage(raw, chainId, credentials));
+    }
+
+    private void refreshGasPrice() {
+        try {
+            gasPrice = web3j.ethGasPrice().send().getGasPrice().min(maxGasPrice);
+        } catch (IOException e) {
+            if (gasPrice == null) {
+                throw new RuntimeException("Error reading gas price: " + e.getMessage(), e);
+            }
+            logger.warn("Gas price refresh failed, keeping {} wei: {}", gasPrice, e.getMessage());
+        }
+    }
+
+    private void evictSettled() {
+        long cutoff = System.nanoTime() - TimeUnit.MINUTES.toNanos(inclusionRetentionMinutes);
+        included.values().removeIf(inclusion -> inclusion.recordedAt < cutoff);
+        failed.values().removeIf(failure -> failure.recordedAt < cutoff);
+    }
+
+    private static boolean isNonceTooLow(String error) {
+        return error != null && error.toLowerCase().contains("nonce too low");
+    }
+}
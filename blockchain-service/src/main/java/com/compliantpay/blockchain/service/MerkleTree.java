@@ -0,0 +1,66 @@
+package com.compliantpay.blockchain.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import com.compliantpay.blockchain.model.ProofStep;
+
+/**
+ * Binary SHA-256 Merkle tree over the leaves of one anchoring transaction. Pairs are hashed left
+ * to right; an odd node at the end of a level is promoted to the next level unchanged, so it has
+ * no sibling at that level and its proof has no step for it.
+ */
+final class MerkleTree {
+
+    // Level 0 holds the leaves, the last level the root
+    private final List<byte[][]> levels = new ArrayList<>();
+
+    MerkleTree(List<byte[]> leaves) {
+        byte[][] level = leaves.toArray(new byte[0][]);
+        levels.add(level);
+        while (level.length > 1) {
+            byte[][] next = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < level.length; i += 2) {
+                next[i / 2] = i + 1 < level.length ? sha256(level[i], level[i + 1]) : level[i];
+            }
+            levels.add(next);
+            level = next;
+        }
+    }
+
+    byte[] root() {
+        return levels.get(levels.size() - 1)[0];
+    }
+
+    /**
+     * Sibling hashes from the leaf up to the root
+     */
+    List<ProofStep> proof(int leafIndex) {
+        List<ProofStep> steps = new ArrayList<>();
+        int index = leafIndex;
+        for (int l = 0; l < levels.size() - 1; l++) {
+            byte[][] level = levels.get(l);
+            int sibling = index ^ 1;
+            if (sibling < level.length) {
+                steps.add(new ProofStep(HexFormat.of().formatHex(level[sibling]), sibling < index));
+            }
+            index /= 2;
+        }
+        return steps;
+    }
+
+    static byte[] sha256(byte[]... parts) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (byte[] part : parts) {
+                md.update(part);
+            }
+            return md.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error generating SHA-256 digest: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,29 +1,76 @@
-
 package com.compliantpay.blockchain.service;
 
-import java.io.UnsupportedEncodingException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.compliantpay.blockchain.model.BlockchainPayload;
+import com.compliantpay.blockchain.model.TransactionReceipt;
+
+/**
+ * Entry point for anchoring: registers a receipt per digest and hands them to the submission
+ * pipeline. Callers get receipts back immediately and may wait on them through the receipt store.
+ */
 @Service
 public class ProofAnchorService {
 
-    public String anchor(String digest, String source) {
-        try {
-            String payload = (digest == null ? "" : digest) + ":" + (source == null ? "" : source) + ":" + System.currentTimeMillis();
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hashed = md.digest(payload.getBytes("UTF-8"));
-            String txHash = "0x" + HexFormat.of().formatHex(hashed);
-            // In production, this would send a transaction to a blockchain node and return the tx hash.
-            return txHash;
-        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
-            // Handle checked exceptions for digest and encoding
-            throw new RuntimeException("Error generating SHA-256 digest: " + e.getMessage(), e);
-        } catch (RuntimeException e) {
-            throw new RuntimeException(e);
+    @Autowired
+    private ReceiptStore receiptStore;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    /**
+     * Digests resubmitted under an idempotency id that already has a live receipt get that receipt
+     * back and are not sent again.
+     *
+     * @return the receipts in submission order, or null if the pipeline is saturated
+     */
+    public List<TransactionReceipt> submit(List<BlockchainPayload> payloads) {
+        List<TransactionReceipt> receipts = new ArrayList<>(payloads.size());
+        List<TransactionReceipt> created = new ArrayList<>(payloads.size());
+        for (BlockchainPayload payload : payloads) {
+            String digest = payload.getDigest() == null ? "" : payload.getDigest();
+            String source = payload.getSource() == null ? "ai-service" : payload.getSource();
+            TransactionReceipt receipt = TransactionReceipt.pending(digest, source);
+            String idempotencyId = payload.getIdempotencyId();
+            if (idempotencyId == null || idempotencyId.isBlank()) {
+                receiptStore.add(receipt);
+            } else {
+                TransactionReceipt existing = receiptStore.addIfAbsent(idempotencyId, receipt);
+                if (existing != null) {
+                    receipts.add(existing);
+                    continue;
+                }
+            }
+            receipts.add(receipt);
+            created.add(receipt);
+        }
+        if (!created.isEmpty() && !transactionService.enqueue(created)) {
+            created.forEach(receipt -> receiptStore.update(receipt.getReceiptId(), r -> r.failed("Submission queue full")));
+            return null;
+        }
+        return receipts;
+    }
+
+    /**
+     * Waits until every receipt has at least reached {@code target} or the timeout passes,
+     * then returns their latest state in submission order.
+     */
+    public CompletableFuture<List<TransactionReceipt>> await(List<TransactionReceipt> receipts,
+                                                             TransactionReceipt.Status target, long timeoutMs) {
+        List<CompletableFuture<TransactionReceipt>> waits = new ArrayList<>(receipts.size());
+        for (TransactionReceipt receipt : receipts) {
+            waits.add(receiptStore.await(receipt.getReceiptId(), target, timeoutMs));
         }
+        return CompletableFuture.allOf(waits.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> waits.stream().map(CompletableFuture::join).toList());
+    }
+
+    public CompletableFuture<TransactionReceipt> awaitReceipt(String receiptId, TransactionReceipt.Status target, long timeoutMs) {
+        return receiptStore.await(receiptId, target, timeoutMs);
     }
 }
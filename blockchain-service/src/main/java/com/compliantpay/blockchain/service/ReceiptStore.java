@@ -0,0 +1,145 @@
+package com.compliantpay.blockchain.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.compliantpay.blockchain.model.TransactionReceipt;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory receipt registry with long-poll support. Waiters are futures completed by the
+ * update that moves a receipt far enough, so no request thread is held while waiting.
+ * Finished receipts are dropped after the retention period, together with the idempotency ids
+ * pointing at them.
+ */
+@Service
+public class ReceiptStore {
+
+    @Value("${app.anchor.receipt-retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, TransactionReceipt> receipts = new ConcurrentHashMap<>();
+    // Client idempotency id to receipt id
+    private final Map<String, String> receiptIdsByIdempotencyId = new ConcurrentHashMap<>();
+    private final Map<String, List<Waiter>> waiters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    private static class Waiter {
+        private final TransactionReceipt.Status target;
+        private final CompletableFuture<TransactionReceipt> future = new CompletableFuture<>();
+
+        Waiter(TransactionReceipt.Status target) {
+            this.target = target;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "receipt-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    public void add(TransactionReceipt receipt) {
+        receipts.put(receipt.getReceiptId(), receipt);
+    }
+
+    /**
+     * Adds the receipt under a client idempotency id, unless that id already has a receipt that
+     * has not failed; a failed one is replaced, so the digest can be retried.
+     *
+     * @return the existing receipt, or null if {@code receipt} was added
+     */
+    public TransactionReceipt addIfAbsent(String idempotencyId, TransactionReceipt receipt) {
+        TransactionReceipt[] existing = new TransactionReceipt[1];
+        receiptIdsByIdempotencyId.compute(idempotencyId, (key, receiptId) -> {
+            TransactionReceipt current = receiptId != null ? receipts.get(receiptId) : null;
+            if (current != null && current.getStatus() != TransactionReceipt.Status.FAILED) {
+                existing[0] = current;
+                return receiptId;
+            }
+            receipts.put(receipt.getReceiptId(), receipt);
+            return receipt.getReceiptId();
+        });
+        return existing[0];
+    }
+
+    public TransactionReceipt get(String receiptId) {
+        return receipts.get(receiptId);
+    }
+
+    public void update(String receiptId, UnaryOperator<TransactionReceipt> change) {
+        TransactionReceipt updated = receipts.computeIfPresent(receiptId, (id, current) -> change.apply(current));
+        if (updated != null) {
+            notifyWaiters(updated);
+        }
+    }
+
+    /**
+     * Completes once the receipt has reached {@code target} (or failed), or after
+     * {@code timeoutMs} with whatever state it has then; completes with null for unknown ids.
+     */
+    public CompletableFuture<TransactionReceipt> await(String receiptId, TransactionReceipt.Status target, long timeoutMs) {
+        TransactionReceipt current = receipts.get(receiptId);
+        if (current == null || current.getStatus().reached(target) || timeoutMs <= 0) {
+            return CompletableFuture.completedFuture(current);
+        }
+        Waiter waiter = new Waiter(target);
+        List<Waiter> list = waiters.computeIfAbsent(receiptId, id -> new CopyOnWriteArrayList<>());
+        list.add(waiter);
+        // Re-check: the update may have landed between the first read and registering
+        current = receipts.get(receiptId);
+        if (current == null || current.getStatus().reached(target)) {
+            waiter.future.complete(current);
+        }
+        return waiter.future
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .thenApply(receipt -> receipt != null ? receipt : receipts.get(receiptId))
+                .whenComplete((receipt, error) -> list.remove(waiter));
+    }
+
+    public int size() {
+        return receipts.size();
+    }
+
+    private void notifyWaiters(TransactionReceipt receipt) {
+        List<Waiter> list = waiters.get(receipt.getReceiptId());
+        if (list == null) {
+            return;
+        }
+        for (Waiter waiter : list) {
+            if (receipt.getStatus().reached(waiter.target)) {
+                waiter.future.complete(receipt);
+            }
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        receipts.values().removeIf(receipt -> receipt.isTerminal() && receipt.getUpdatedAt().isBefore(cutoff));
+        receiptIdsByIdempotencyId.values().removeIf(receiptId -> !receipts.containsKey(receiptId));
+        waiters.entrySet().removeIf(entry -> entry.getValue().isEmpty());
+    }
+}
@@ -0,0 +1,209 @@
+package com.compliantpay.blockchain.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.compliantpay.blockchain.chain.ChainGateway;
+import com.compliantpay.blockchain.model.ProofStep;
+import com.compliantpay.blockchain.model.TransactionReceipt;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Asynchronous submission pipeline. Accepted digests wait in a bounded queue; submitter threads
+ * drain up to {@code max-digests-per-tx} of them at a time and send one transaction carrying the
+ * Merkle root of the group. A single polling loop then watches all in-flight transactions and
+ * confirms their receipts once they are mined, or fails them as soon as the chain reports that the
+ * transaction reverted or will never be mined.
+ */
+@Service
+public class TransactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
+
+    @Autowired
+    private ChainGateway chainGateway;
+
+    @Autowired
+    private ReceiptStore receiptStore;
+
+    @Value("${app.anchor.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${app.anchor.max-digests-per-tx:256}")
+    private int maxDigestsPerTx;
+
+    @Value("${app.anchor.submitters:2}")
+    private int submitters;
+
+    @Value("${app.anchor.receipt-poll-ms:250}")
+    private long receiptPollMs;
+
+    @Value("${app.anchor.confirmation-timeout-seconds:300}")
+    private long confirmationTimeoutSeconds;
+
+    private BlockingQueue<TransactionReceipt> queue;
+    private final Map<String, InFlightTx> inFlight = new ConcurrentHashMap<>();
+    private ExecutorService submitterPool;
+    private ScheduledExecutorService receiptPoller;
+    private volatile boolean running;
+
+    private static class InFlightTx {
+        private final List<String> receiptIds;
+        private final long submittedAt;
+
+        InFlightTx(List<String> receiptIds, long submittedAt) {
+            this.receiptIds = receiptIds;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        AtomicInteger threadCount = new AtomicInteger();
+        submitterPool = Executors.newFixedThreadPool(submitters, r -> {
+            Thread thread = new Thread(r, "anchor-submitter-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < submitters; i++) {
+            submitterPool.execute(this::submitLoop);
+        }
+        receiptPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "anchor-receipt-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        receiptPoller.scheduleWithFixedDelay(this::pollReceipts, receiptPollMs, receiptPollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        submitterPool.shutdownNow();
+        receiptPoller.shutdownNow();
+    }
+
+    /**
+     * Queues receipts for submission, all or nothing.
+     *
+     * @return false if the queue cannot take the whole group right now
+     */
+    public boolean enqueue(List<TransactionReceipt> receipts) {
+        if (queue.remainingCapacity() < receipts.size()) {
+            return false;
+        }
+        for (TransactionReceipt receipt : receipts) {
+            if (!queue.offer(receipt)) {
+                // Lost a race for the last slots; the rest of the group fails visibly
+                receiptStore.update(receipt.getReceiptId(), r -> r.failed("Submission queue full"));
+            }
+        }
+        return true;
+    }
+
+    public int queuedCount() {
+        return queue.size();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private void submitLoop() {
+        while (running) {
+            try {
+                TransactionReceipt first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<TransactionReceipt> group = new ArrayList<>(maxDigestsPerTx);
+                group.add(first);
+                queue.drainTo(group, maxDigestsPerTx - 1);
+                submit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void submit(List<TransactionReceipt> group) {
+        List<String> receiptIds = new ArrayList<>(group.size());
+        try {
+            List<byte[]> leaves = new ArrayList<>(group.size());
+            for (TransactionReceipt receipt : group) {
+                receiptIds.add(receipt.getReceiptId());
+                leaves.add(MerkleTree.sha256(receipt.getDigest().getBytes(StandardCharsets.UTF_8)));
+            }
+            MerkleTree tree = new MerkleTree(leaves);
+            String rootHex = HexFormat.of().formatHex(tree.root());
+            String txHash = chainGateway.send(tree.root());
+            for (int i = 0; i < receiptIds.size(); i++) {
+                int leafIndex = i;
+                List<ProofStep> proof = tree.proof(i);
+                receiptStore.update(receiptIds.get(i), r -> r.submitted(txHash, rootHex, leafIndex, proof));
+            }
+            // Registered only after the receipts say SUBMITTED, so confirmation cannot be overwritten
+            inFlight.put(txHash, new InFlightTx(receiptIds, System.nanoTime()));
+        } catch (RuntimeException e) {
+            logger.error("Anchoring transaction for {} digests failed", group.size(), e);
+            for (String receiptId : receiptIds) {
+                receiptStore.update(receiptId, r -> r.failed(e.getMessage()));
+            }
+        }
+    }
+
+    private void pollReceipts() {
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(confirmationTimeoutSeconds);
+        for (Map.Entry<String, InFlightTx> entry : inFlight.entrySet()) {
+            try {
+                InFlightTx tx = entry.getValue();
+                Optional<String> failure = chainGateway.failure(entry.getKey());
+                if (failure.isPresent()) {
+                    for (String receiptId : tx.receiptIds) {
+                        receiptStore.update(receiptId, r -> r.failed(failure.get()));
+                    }
+                    inFlight.remove(entry.getKey());
+                    continue;
+                }
+                OptionalLong block = chainGateway.inclusionBlock(entry.getKey());
+                if (block.isPresent()) {
+                    for (String receiptId : tx.receiptIds) {
+                        receiptStore.update(receiptId, r -> r.confirmed(block.getAsLong()));
+                    }
+                    inFlight.remove(entry.getKey());
+                } else if (System.nanoTime() - tx.submittedAt > timeoutNanos) {
+                    for (String receiptId : tx.receiptIds) {
+                        receiptStore.update(receiptId, r -> r.failed("Not mined within " + confirmationTimeoutSeconds + "s"));
+                    }
+                    inFlight.remove(entry.getKey());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Receipt lookup for {} failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+}
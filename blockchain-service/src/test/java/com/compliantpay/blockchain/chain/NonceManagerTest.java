@@ -0,0 +1,92 @@
+package com.compliantpay.blockchain.chain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.utils.Numeric;
+
+class NonceManagerTest {
+
+    private static final String ADDRESS = "0xf39fd6e51aad88f6f4ce6ab8827279cfffb92266";
+
+    private Web3j web3j;
+    private long pendingCount = 5;
+    private NonceManager nonceManager;
+
+    @BeforeEach
+    void setUp() {
+        web3j = mock(Web3j.class);
+        doAnswer(invocation -> respond(count(pendingCount)))
+                .when(web3j).ethGetTransactionCount(anyString(), eq(DefaultBlockParameterName.PENDING));
+        nonceManager = new NonceManager(web3j, ADDRESS);
+    }
+
+    @Test
+    void allocatesFromThePendingCountWithoutAskingAgain() {
+        assertThat(nonceManager.allocate()).isEqualTo(5);
+        assertThat(nonceManager.allocate()).isEqualTo(6);
+        assertThat(nonceManager.allocate()).isEqualTo(7);
+        verify(web3j, times(1)).ethGetTransactionCount(ADDRESS, DefaultBlockParameterName.PENDING);
+    }
+
+    @Test
+    void releasedNonceIsHandedOutBeforeNewOnes() {
+        nonceManager.allocate();
+        long rejected = nonceManager.allocate();
+        nonceManager.allocate();
+
+        nonceManager.release(rejected);
+
+        assertThat(nonceManager.allocate()).isEqualTo(rejected);
+        assertThat(nonceManager.allocate()).isEqualTo(8);
+    }
+
+    @Test
+    void releasingTheLatestNonceRewindsTheCounter() {
+        nonceManager.allocate();
+        nonceManager.release(nonceManager.allocate());
+
+        assertThat(nonceManager.allocate()).isEqualTo(6);
+        assertThat(nonceManager.allocate()).isEqualTo(7);
+    }
+
+    @Test
+    void resyncDropsReleasedNoncesAndReadsTheCountAgain() {
+        long rejected = nonceManager.allocate();
+        nonceManager.allocate();
+        nonceManager.release(rejected);
+        pendingCount = 20;
+
+        nonceManager.resync();
+
+        assertThat(nonceManager.allocate()).isEqualTo(20);
+    }
+
+    private static EthGetTransactionCount count(long value) {
+        EthGetTransactionCount response = new EthGetTransactionCount();
+        response.setResult(Numeric.encodeQuantity(BigInteger.valueOf(value)));
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Response<?>> Request<?, T> respond(T response) throws IOException {
+        Request<?, T> request = mock(Request.class);
+        doAnswer(invocation -> response).when(request).send();
+        return request;
+    }
+}
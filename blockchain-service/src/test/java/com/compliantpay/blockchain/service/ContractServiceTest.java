@@ -0,0 +1,222 @@
+package com.compliantpay.blockchain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionDecoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Numeric;
+
+/**
+ * Runs ContractService against a mocked node that records every broadcast and answers receipt
+ * lookups from a map. Polling is driven by the test rather than the scheduler.
+ */
+class ContractServiceTest {
+
+    // First default account of local dev chains (anvil, hardhat)
+    private static final Credentials CREDENTIALS =
+            Credentials.create("0xac0974bec39a17e36ba4a6b4d238ff944bacb478cbed5efcae784d7bf4f2ff80");
+    private static final BigInteger GAS_PRICE = BigInteger.valueOf(1_000_000_000L);
+    private static final byte[] DATA = "anchor".getBytes(StandardCharsets.UTF_8);
+
+    private final List<String> broadcasts = new ArrayList<>();
+    private final Map<String, TransactionReceipt> receipts = new HashMap<>();
+    private String nextSendError;
+    private long pendingCount = 3;
+    private long minedCount = 3;
+    private long head = 100;
+
+    private ContractService contractService;
+
+    @BeforeEach
+    void setUp() {
+        Web3j web3j = mock(Web3j.class);
+        doAnswer(invocation -> respond(count(pendingCount)))
+                .when(web3j).ethGetTransactionCount(anyString(), eq(DefaultBlockParameterName.PENDING));
+        doAnswer(invocation -> respond(count(minedCount)))
+                .when(web3j).ethGetTransactionCount(anyString(), eq(DefaultBlockParameterName.LATEST));
+        doAnswer(invocation -> {
+            EthBlockNumber response = new EthBlockNumber();
+            response.setResult(Numeric.encodeQuantity(BigInteger.valueOf(head)));
+            return respond(response);
+        }).when(web3j).ethBlockNumber();
+        doAnswer(invocation -> {
+            EthGasPrice response = new EthGasPrice();
+            response.setResult(Numeric.encodeQuantity(GAS_PRICE));
+            return respond(response);
+        }).when(web3j).ethGasPrice();
+        doAnswer(invocation -> {
+            String signed = invocation.getArgument(0);
+            broadcasts.add(signed);
+            EthSendTransaction response = new EthSendTransaction();
+            if (nextSendError != null) {
+                response.setError(new Response.Error(-32000, nextSendError));
+                nextSendError = null;
+            } else {
+                response.setResult(Hash.sha3(signed));
+            }
+            return respond(response);
+        }).when(web3j).ethSendRawTransaction(anyString());
+        doAnswer(invocation -> {
+            EthGetTransactionReceipt response = new EthGetTransactionReceipt();
+            response.setResult(receipts.get(invocation.<String>getArgument(0)));
+            return respond(response);
+        }).when(web3j).ethGetTransactionReceipt(anyString());
+
+        contractService = new ContractService();
+        ReflectionTestUtils.setField(contractService, "web3j", web3j);
+        ReflectionTestUtils.setField(contractService, "credentials", CREDENTIALS);
+        ReflectionTestUtils.setField(contractService, "chainId", 1337L);
+        ReflectionTestUtils.setField(contractService, "anchorAddress", "");
+        ReflectionTestUtils.setField(contractService, "gasLimit", 30000L);
+        ReflectionTestUtils.setField(contractService, "maxGasPriceGwei", 500L);
+        ReflectionTestUtils.setField(contractService, "bumpAfterSeconds", 1L);
+        ReflectionTestUtils.setField(contractService, "bumpPercent", 15);
+        ReflectionTestUtils.setField(contractService, "maxBumps", 5);
+        // Long enough that the scheduled poll never runs during a test
+        ReflectionTestUtils.setField(contractService, "pollMs", 3_600_000L);
+        ReflectionTestUtils.setField(contractService, "inclusionRetentionMinutes", 10L);
+        contractService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        contractService.stop();
+    }
+
+    @Test
+    void rejectedSendReleasesItsNonce() {
+        nextSendError = "insufficient funds for gas * price + value";
+
+        assertThatThrownBy(() -> contractService.send(DATA)).hasMessageContaining("insufficient funds");
+        contractService.send(DATA);
+
+        assertThat(broadcasts).hasSize(2);
+        assertThat(decode(0).getNonce()).isEqualTo(3);
+        assertThat(decode(1).getNonce()).isEqualTo(3);
+        assertThat(contractService.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unminedTransactionIsBumpedOnlyAfterBumpAfterSeconds() throws InterruptedException {
+        String id = contractService.send(DATA);
+
+        poll();
+        assertThat(broadcasts).hasSize(1);
+
+        Thread.sleep(1100);
+        head++;
+        poll();
+
+        assertThat(broadcasts).hasSize(2);
+        RawTransaction original = decode(0);
+        RawTransaction bumped = decode(1);
+        assertThat(bumped.getNonce()).isEqualTo(original.getNonce());
+        assertThat(bumped.getGasPrice()).isEqualTo(GAS_PRICE.multiply(BigInteger.valueOf(115)).divide(BigInteger.valueOf(100)));
+        assertThat(contractService.inclusionBlock(id)).isEmpty();
+        assertThat(contractService.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void receiptOfABumpedVersionSettlesTheOriginalId() throws InterruptedException {
+        String id = contractService.send(DATA);
+        Thread.sleep(1100);
+        poll();
+        assertThat(broadcasts).hasSize(2);
+
+        // Only the bumped version gets mined
+        String bumpedHash = Hash.sha3(broadcasts.get(1));
+        TransactionReceipt receipt = new TransactionReceipt();
+        receipt.setTransactionHash(bumpedHash);
+        receipt.setBlockNumber(Numeric.encodeQuantity(BigInteger.valueOf(101)));
+        receipt.setStatus("0x1");
+        receipts.put(bumpedHash, receipt);
+        minedCount = 4;
+        head = 101;
+        poll();
+
+        assertThat(contractService.inclusionBlock(id)).hasValue(101);
+        assertThat(contractService.pendingCount()).isZero();
+    }
+
+    @Test
+    void revertedTransactionIsReportedAsFailedNotIncluded() {
+        String id = contractService.send(DATA);
+        TransactionReceipt receipt = new TransactionReceipt();
+        receipt.setTransactionHash(id);
+        receipt.setBlockNumber(Numeric.encodeQuantity(BigInteger.valueOf(101)));
+        receipt.setStatus("0x0");
+        receipts.put(id, receipt);
+        minedCount = 4;
+        head = 101;
+        poll();
+
+        assertThat(contractService.inclusionBlock(id)).isEmpty();
+        assertThat(contractService.failure(id)).hasValue("Reverted in block 101");
+        assertThat(contractService.pendingCount()).isZero();
+    }
+
+    @Test
+    void nonceTakenByAnotherTransactionFailsWithoutWaitingForTheTimeout() {
+        String id = contractService.send(DATA);
+        // The nonce is mined, but never by any version of ours
+        minedCount = 4;
+        for (int block = 0; block < 3; block++) {
+            head++;
+            poll();
+        }
+
+        assertThat(contractService.inclusionBlock(id)).isEmpty();
+        assertThat(contractService.failure(id)).hasValueSatisfying(reason -> assertThat(reason).contains("another transaction"));
+        assertThat(contractService.pendingCount()).isZero();
+    }
+
+    private void poll() {
+        ReflectionTestUtils.invokeMethod(contractService, "poll");
+    }
+
+    private RawTransaction decode(int broadcast) {
+        return TransactionDecoder.decode(broadcasts.get(broadcast));
+    }
+
+    private static EthGetTransactionCount count(long value) {
+        EthGetTransactionCount response = new EthGetTransactionCount();
+        response.setResult(Numeric.encodeQuantity(BigInteger.valueOf(value)));
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Response<?>> Request<?, T> respond(T response) throws IOException {
+        Request<?, T> request = mock(Request.class);
+        doAnswer(invocation -> response).when(request).send();
+        return request;
+    }
+}
@@ -0,0 +1,56 @@
+package com.compliantpay.blockchain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.compliantpay.blockchain.model.ProofStep;
+
+class MerkleTreeTest {
+
+    @Test
+    void everyLeafProofFoldsToTheRoot() {
+        for (int size = 1; size <= 9; size++) {
+            List<byte[]> leaves = leaves(size);
+            MerkleTree tree = new MerkleTree(leaves);
+            for (int i = 0; i < size; i++) {
+                assertThat(fold(leaves.get(i), tree.proof(i))).as("leaf %d of %d", i, size).isEqualTo(tree.root());
+            }
+        }
+    }
+
+    @Test
+    void promotedLeafHasNoSiblingAtTheLevelItIsPromotedFrom() {
+        List<byte[]> leaves = leaves(3);
+        MerkleTree tree = new MerkleTree(leaves);
+
+        List<ProofStep> proof = tree.proof(2);
+
+        assertThat(proof).hasSize(1);
+        assertThat(proof.get(0).isLeft()).isTrue();
+        assertThat(proof.get(0).getHash())
+                .isEqualTo(HexFormat.of().formatHex(MerkleTree.sha256(leaves.get(0), leaves.get(1))));
+    }
+
+    private static byte[] fold(byte[] leaf, List<ProofStep> proof) {
+        byte[] node = leaf;
+        for (ProofStep step : proof) {
+            byte[] sibling = HexFormat.of().parseHex(step.getHash());
+            node = step.isLeft() ? MerkleTree.sha256(sibling, node) : MerkleTree.sha256(node, sibling);
+        }
+        return node;
+    }
+
+    private static List<byte[]> leaves(int size) {
+        List<byte[]> leaves = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            leaves.add(MerkleTree.sha256(("digest-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        return leaves;
+    }
+}
@@ -0,0 +1,35 @@
+package com.compliantpay.blockchain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.compliantpay.blockchain.model.TransactionReceipt;
+
+class ReceiptStoreTest {
+
+    private final ReceiptStore receiptStore = new ReceiptStore();
+
+    @Test
+    void resubmissionUnderTheSameIdempotencyIdReturnsTheFirstReceipt() {
+        TransactionReceipt first = TransactionReceipt.pending("0xabc", "backend");
+
+        assertThat(receiptStore.addIfAbsent("payroll-1", first)).isNull();
+        assertThat(receiptStore.addIfAbsent("payroll-1", TransactionReceipt.pending("0xabc", "backend")))
+                .isSameAs(first);
+        assertThat(receiptStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    void failedReceiptIsReplacedSoTheDigestCanBeRetried() {
+        TransactionReceipt first = TransactionReceipt.pending("0xabc", "backend");
+        receiptStore.addIfAbsent("payroll-1", first);
+        receiptStore.update(first.getReceiptId(), receipt -> receipt.failed("Submission queue full"));
+
+        TransactionReceipt retry = TransactionReceipt.pending("0xabc", "backend");
+
+        assertThat(receiptStore.addIfAbsent("payroll-1", retry)).isNull();
+        assertThat(receiptStore.addIfAbsent("payroll-1", TransactionReceipt.pending("0xabc", "backend")))
+                .isSameAs(retry);
+    }
+}